@@ -0,0 +1,106 @@
+package byx.aop.agent;
+
+import byx.aop.WeaveMode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * agent参数，格式为：key=value,value;key=value,...
+ * <ul>
+ *     <li>include：需要织入的类，以.*结尾表示包及其子包中的所有类，否则表示一个类，必须指定</li>
+ *     <li>exclude：不织入的类，格式与include相同</li>
+ *     <li>advice：增强类的类名，必须有无参构造函数，必须指定</li>
+ *     <li>weaveMode：织入方式，CHAIN或INLINE，默认为CHAIN</li>
+ * </ul>
+ *
+ * @author byx
+ */
+class AgentConfig {
+    /**
+     * 总是不织入的包
+     */
+    private static final List<String> BUILTIN_EXCLUDES = Arrays.asList(
+            "java.*", "javax.*", "jdk.*", "sun.*", "com.sun.*", "byx.aop.*", "byx.util.*");
+
+    private final List<String> includes = new ArrayList<>();
+    private final List<String> excludes = new ArrayList<>(BUILTIN_EXCLUDES);
+    private final List<String> advices = new ArrayList<>();
+    private WeaveMode weaveMode = WeaveMode.CHAIN;
+
+    static AgentConfig parse(String args) {
+        AgentConfig config = new AgentConfig();
+        if (args != null) {
+            for (String option : args.split(";")) {
+                option = option.trim();
+                if (option.isEmpty()) {
+                    continue;
+                }
+                int index = option.indexOf('=');
+                if (index < 0) {
+                    throw new IllegalArgumentException("Illegal agent option: " + option);
+                }
+                String key = option.substring(0, index).trim();
+                List<String> values = new ArrayList<>();
+                for (String value : option.substring(index + 1).split(",")) {
+                    if (!value.trim().isEmpty()) {
+                        values.add(value.trim());
+                    }
+                }
+                switch (key) {
+                    case "include":
+                        config.includes.addAll(values);
+                        break;
+                    case "exclude":
+                        config.excludes.addAll(values);
+                        break;
+                    case "advice":
+                        config.advices.addAll(values);
+                        break;
+                    case "weaveMode":
+                        config.weaveMode = WeaveMode.valueOf(values.get(0));
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown agent option: " + key);
+                }
+            }
+        }
+        if (config.includes.isEmpty() || config.advices.isEmpty()) {
+            throw new IllegalArgumentException("Agent options include and advice must be specified");
+        }
+        // 增强类本身不织入
+        config.excludes.addAll(config.advices);
+        return config;
+    }
+
+    /**
+     * 判断类是否需要织入
+     * @param className 类名，嵌套类使用$分隔
+     */
+    public boolean shouldWeave(String className) {
+        return matchesAny(includes, className) && !matchesAny(excludes, className);
+    }
+
+    private static boolean matchesAny(List<String> patterns, String className) {
+        for (String pattern : patterns) {
+            if (pattern.endsWith(".*")) {
+                if (className.startsWith(pattern.substring(0, pattern.length() - 1))) {
+                    return true;
+                }
+            } else if (className.equals(pattern) || className.startsWith(pattern + "$")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public List<String> getAdvices() {
+        return Collections.unmodifiableList(advices);
+    }
+
+    public WeaveMode getWeaveMode() {
+        return weaveMode;
+    }
+}
@@ -0,0 +1,213 @@
+package byx.aop.agent;
+
+import byx.aop.AopOptions;
+import byx.aop.ByxAOP;
+import byx.util.proxy.core.MethodInterceptor;
+import byx.util.proxy.core.MethodSignature;
+import org.objectweb.asm.Type;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 被织入的方法在运行时调用的入口
+ * 每个被织入的类第一次调用时，用配置的增强类创建拦截器并解析所有被织入的方法，之后直接查表
+ *
+ * @author byx
+ */
+public final class AgentRuntime {
+    /**
+     * 被织入的类及其方法
+     */
+    private static class ClassState {
+        private final MethodInterceptor interceptor;
+        private final int firstId;
+        private final WovenMethod[] methods;
+
+        private ClassState(Class<?> owner) {
+            Object[] advices = config.getAdvices().stream()
+                    .map(name -> adviceInstance(name, owner.getClassLoader()))
+                    .toArray();
+            // 被织入的方法保留了原来的throws声明，受检异常原样抛出，与织入前的行为一致
+            AopOptions options = new AopOptions()
+                    .weaveMode(config.getWeaveMode())
+                    .rethrowCheckedExceptions(true);
+            this.interceptor = ByxAOP.factory(owner, options, advices).getInterceptor();
+
+            // 同名的类可能被多个类加载器加载，只保留在owner中能找到原方法的记录
+            List<Registration> registrations;
+            synchronized (REGISTRY) {
+                registrations = new ArrayList<>(REGISTRY.getOrDefault(Type.getInternalName(owner), Collections.emptyList()));
+            }
+            List<WovenMethod> found = new ArrayList<>();
+            int first = -1;
+            for (Registration r : registrations) {
+                Method original = findOriginal(owner, r.name, r.descriptor);
+                if (original == null) {
+                    continue;
+                }
+                if (first < 0) {
+                    first = r.id;
+                }
+                while (found.size() < r.id - first) {
+                    found.add(null);
+                }
+                found.add(new WovenMethod(r.name, original));
+            }
+            this.firstId = first;
+            this.methods = found.toArray(new WovenMethod[0]);
+        }
+
+        private WovenMethod get(int id) {
+            int index = id - firstId;
+            if (firstId < 0 || index < 0 || index >= methods.length || methods[index] == null) {
+                throw new IllegalStateException("Unknown woven method: " + id);
+            }
+            return methods[index];
+        }
+    }
+
+    /**
+     * 一次登记的方法
+     */
+    private static class Registration {
+        private final int id;
+        private final String name;
+        private final String descriptor;
+
+        private Registration(int id, String name, String descriptor) {
+            this.id = id;
+            this.name = name;
+            this.descriptor = descriptor;
+        }
+    }
+
+    /**
+     * 按类的内部名称分组的登记记录，方法编号全局递增
+     */
+    private static final Map<String, List<Registration>> REGISTRY = new HashMap<>();
+    private static int nextId = 0;
+    private static final ConcurrentMap<Class<?>, Object> ADVICES = new ConcurrentHashMap<>();
+    private static final ClassValue<ClassState> STATES = new ClassValue<ClassState>() {
+        @Override
+        protected ClassState computeValue(Class<?> type) {
+            return new ClassState(type);
+        }
+    };
+
+    private static volatile AgentConfig config;
+
+    private AgentRuntime() {
+    }
+
+    static void init(AgentConfig config) {
+        AgentRuntime.config = config;
+    }
+
+    /**
+     * 登记一个被织入的方法，返回方法编号
+     * 同一个类的方法在类加载前全部登记完毕
+     */
+    static int register(String owner, String name, String descriptor) {
+        synchronized (REGISTRY) {
+            int id = nextId++;
+            REGISTRY.computeIfAbsent(owner, k -> new ArrayList<>()).add(new Registration(id, name, descriptor));
+            return id;
+        }
+    }
+
+    /**
+     * 由被织入的方法调用
+     * @param owner 被织入的类
+     * @param id 方法编号
+     * @param target 调用的对象，静态方法为null
+     * @param args 参数
+     * @return 返回值
+     */
+    public static Object invoke(Class<?> owner, int id, Object target, Object[] args) {
+        ClassState state = STATES.get(owner);
+        return state.interceptor.intercept(new AgentTargetMethod(state.get(id), target, args));
+    }
+
+    private static Object adviceInstance(String className, ClassLoader loader) {
+        try {
+            Class<?> adviceClass = Class.forName(className, true, loader);
+            return ADVICES.computeIfAbsent(adviceClass, c -> {
+                try {
+                    return c.getConstructor().newInstance();
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalStateException("Cannot create advice: " + className, e);
+                }
+            });
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Advice class not found: " + className, e);
+        }
+    }
+
+    private static Method findOriginal(Class<?> owner, String name, String descriptor) {
+        for (Method m : owner.getDeclaredMethods()) {
+            if (m.getName().equals(WeavingTransformer.ORIGINAL_PREFIX + name)
+                    && Type.getMethodDescriptor(m).equals(descriptor)) {
+                return m;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 被织入的方法的签名以及调用原方法的方法句柄
+     */
+    static class WovenMethod implements MethodSignature {
+        private final String name;
+        private final Class<?> returnType;
+        private final Class<?>[] parameterTypes;
+        private final MethodHandle original;
+
+        private WovenMethod(String name, Method original) {
+            this.name = name;
+            this.returnType = original.getReturnType();
+            this.parameterTypes = original.getParameterTypes();
+            try {
+                original.setAccessible(true);
+                MethodHandle mh = MethodHandles.lookup().unreflect(original);
+                if (Modifier.isStatic(original.getModifiers())) {
+                    mh = MethodHandles.dropArguments(mh, 0, Object.class);
+                }
+                // 类型为(Object, Object[])Object，第一个参数是调用的对象
+                this.original = mh.asType(MethodType.genericMethodType(parameterTypes.length + 1))
+                        .asSpreader(Object[].class, parameterTypes.length);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Cannot access woven method: " + original, e);
+            }
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public Class<?> getReturnType() {
+            return returnType;
+        }
+
+        @Override
+        public Class<?>[] getParameterTypes() {
+            return parameterTypes;
+        }
+
+        Object invoke(Object target, Object[] args) throws Throwable {
+            return (Object) original.invokeExact(target, args);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package byx.aop.agent;
+
+import byx.util.proxy.core.MethodSignature;
+import byx.util.proxy.core.TargetMethod;
+
+/**
+ * 被织入的方法的一次调用
+ *
+ * @author byx
+ */
+class AgentTargetMethod implements TargetMethod {
+    private final AgentRuntime.WovenMethod method;
+    private final Object target;
+    private final Object[] params;
+
+    AgentTargetMethod(AgentRuntime.WovenMethod method, Object target, Object[] params) {
+        this.method = method;
+        this.target = target;
+        this.params = params;
+    }
+
+    @Override
+    public MethodSignature getSignature() {
+        return method;
+    }
+
+    @Override
+    public Object[] getParams() {
+        return params;
+    }
+
+    @Override
+    public Object invoke(Object... params) {
+        try {
+            return method.invoke(target, params);
+        } catch (Throwable t) {
+            throw AgentTargetMethod.<RuntimeException>sneakyThrow(t);
+        }
+    }
+
+    @Override
+    public Object invokeWithOriginalParams() {
+        return invoke(params);
+    }
+
+    /**
+     * 原样抛出原方法的异常，包括受检异常
+     */
+    @SuppressWarnings("unchecked")
+    private static <E extends Throwable> E sneakyThrow(Throwable t) throws E {
+        throw (E) t;
+    }
+}
@@ -0,0 +1,18 @@
+package byx.aop.agent;
+
+import java.lang.instrument.Instrumentation;
+
+/**
+ * 加载期织入的Java Agent入口
+ * 使用方式：-javaagent:byx-aop-agent.jar=include=com.example.domain.*;advice=com.example.TraceAdvice
+ * 被织入的类不需要通过getAopProxy获取，直接new出来的对象、final类和自调用也会被增强
+ *
+ * @author byx
+ */
+public class ByxAopAgent {
+    public static void premain(String args, Instrumentation inst) {
+        AgentConfig config = AgentConfig.parse(args);
+        AgentRuntime.init(config);
+        inst.addTransformer(new WeavingTransformer(config));
+    }
+}
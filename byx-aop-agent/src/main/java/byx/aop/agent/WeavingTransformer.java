@@ -0,0 +1,205 @@
+package byx.aop.agent;
+
+import org.objectweb.asm.*;
+
+import java.lang.instrument.ClassFileTransformer;
+import java.security.ProtectionDomain;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.objectweb.asm.Opcodes.*;
+
+/**
+ * 在类加载时改写字节码
+ * 对每个需要织入的方法m：原方法体移到私有方法byx$original$m中，m改为调用AgentRuntime.invoke，
+ * 由AgentRuntime执行拦截器链，最终调用byx$original$m
+ * 构造函数、private、abstract、native、synthetic和bridge方法不织入
+ *
+ * @author byx
+ */
+class WeavingTransformer implements ClassFileTransformer {
+    static final String ORIGINAL_PREFIX = "byx$original$";
+
+    private static final Logger LOGGER = Logger.getLogger(WeavingTransformer.class.getName());
+
+    private static final String RUNTIME = "byx/aop/agent/AgentRuntime";
+    private static final String INVOKE_DESC = "(Ljava/lang/Class;ILjava/lang/Object;[Ljava/lang/Object;)Ljava/lang/Object;";
+
+    private final AgentConfig config;
+
+    WeavingTransformer(AgentConfig config) {
+        this.config = config;
+    }
+
+    @Override
+    public byte[] transform(ClassLoader loader, String className, Class<?> classBeingRedefined,
+                            ProtectionDomain protectionDomain, byte[] classfileBuffer) {
+        if (loader == null || className == null || classBeingRedefined != null
+                || !config.shouldWeave(className.replace('/', '.'))) {
+            return null;
+        }
+        try {
+            return weave(classfileBuffer);
+        } catch (Throwable t) {
+            // ClassFileTransformer抛出的异常会被JVM忽略，这里记录原因，类按原样加载
+            LOGGER.log(Level.WARNING, "Cannot weave " + className, t);
+            return null;
+        }
+    }
+
+    private static byte[] weave(byte[] bytes) {
+        ClassReader reader = new ClassReader(bytes);
+        if ((reader.getAccess() & (ACC_INTERFACE | ACC_ANNOTATION | ACC_MODULE)) != 0) {
+            return null;
+        }
+        ClassWriter writer = new ClassWriter(reader, ClassWriter.COMPUTE_MAXS);
+        WeavingClassVisitor visitor = new WeavingClassVisitor(writer);
+        reader.accept(visitor, 0);
+        return visitor.woven ? writer.toByteArray() : null;
+    }
+
+    private static class WeavingClassVisitor extends ClassVisitor {
+        private String owner;
+        private boolean woven = false;
+
+        private WeavingClassVisitor(ClassVisitor cv) {
+            super(ASM9, cv);
+        }
+
+        @Override
+        public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+            this.owner = name;
+            super.visit(version, access, name, signature, superName, interfaces);
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+            if (name.startsWith("<") || name.startsWith(ORIGINAL_PREFIX)
+                    || (access & (ACC_PRIVATE | ACC_ABSTRACT | ACC_NATIVE | ACC_SYNTHETIC | ACC_BRIDGE)) != 0) {
+                return super.visitMethod(access, name, descriptor, signature, exceptions);
+            }
+            woven = true;
+            int id = AgentRuntime.register(owner, name, descriptor);
+
+            // 原方法体放入私有方法，注解保留在对外的方法上
+            MethodVisitor original = super.visitMethod(
+                    (access & ~(ACC_PUBLIC | ACC_PROTECTED | ACC_VARARGS)) | ACC_PRIVATE | ACC_SYNTHETIC,
+                    ORIGINAL_PREFIX + name, descriptor, signature, exceptions);
+            MethodVisitor stub = super.visitMethod(access & ~ACC_SYNCHRONIZED, name, descriptor, signature, exceptions);
+            return new MethodVisitor(ASM9, original) {
+                @Override
+                public void visitParameter(String name, int access) {
+                    stub.visitParameter(name, access);
+                }
+
+                @Override
+                public AnnotationVisitor visitAnnotationDefault() {
+                    return stub.visitAnnotationDefault();
+                }
+
+                @Override
+                public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+                    return stub.visitAnnotation(descriptor, visible);
+                }
+
+                @Override
+                public AnnotationVisitor visitTypeAnnotation(int typeRef, TypePath typePath, String descriptor, boolean visible) {
+                    return stub.visitTypeAnnotation(typeRef, typePath, descriptor, visible);
+                }
+
+                @Override
+                public void visitAnnotableParameterCount(int parameterCount, boolean visible) {
+                    stub.visitAnnotableParameterCount(parameterCount, visible);
+                }
+
+                @Override
+                public AnnotationVisitor visitParameterAnnotation(int parameter, String descriptor, boolean visible) {
+                    return stub.visitParameterAnnotation(parameter, descriptor, visible);
+                }
+
+                @Override
+                public void visitEnd() {
+                    super.visitEnd();
+                    generateStub(stub, owner, id, (access & ACC_STATIC) != 0, descriptor);
+                }
+            };
+        }
+    }
+
+    /**
+     * 生成调用AgentRuntime.invoke(owner, id, this, new Object[]{参数...})的方法体
+     */
+    private static void generateStub(MethodVisitor mv, String owner, int id, boolean isStatic, String descriptor) {
+        Type[] argumentTypes = Type.getArgumentTypes(descriptor);
+        Type returnType = Type.getReturnType(descriptor);
+
+        mv.visitCode();
+        mv.visitLdcInsn(Type.getObjectType(owner));
+        mv.visitLdcInsn(id);
+        if (isStatic) {
+            mv.visitInsn(ACONST_NULL);
+        } else {
+            mv.visitVarInsn(ALOAD, 0);
+        }
+        mv.visitLdcInsn(argumentTypes.length);
+        mv.visitTypeInsn(ANEWARRAY, "java/lang/Object");
+        int slot = isStatic ? 0 : 1;
+        for (int i = 0; i < argumentTypes.length; ++i) {
+            mv.visitInsn(DUP);
+            mv.visitLdcInsn(i);
+            mv.visitVarInsn(argumentTypes[i].getOpcode(ILOAD), slot);
+            box(mv, argumentTypes[i]);
+            mv.visitInsn(AASTORE);
+            slot += argumentTypes[i].getSize();
+        }
+        mv.visitMethodInsn(INVOKESTATIC, RUNTIME, "invoke", INVOKE_DESC, false);
+        unbox(mv, returnType);
+        mv.visitInsn(returnType.getOpcode(IRETURN));
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private static void box(MethodVisitor mv, Type type) {
+        String wrapper = wrapper(type);
+        if (wrapper != null) {
+            mv.visitMethodInsn(INVOKESTATIC, wrapper, "valueOf", "(" + type.getDescriptor() + ")L" + wrapper + ";", false);
+        }
+    }
+
+    private static void unbox(MethodVisitor mv, Type type) {
+        if (type.getSort() == Type.VOID) {
+            mv.visitInsn(POP);
+            return;
+        }
+        String wrapper = wrapper(type);
+        if (wrapper != null) {
+            mv.visitTypeInsn(CHECKCAST, wrapper);
+            mv.visitMethodInsn(INVOKEVIRTUAL, wrapper, type.getClassName() + "Value", "()" + type.getDescriptor(), false);
+        } else if (!type.getInternalName().equals("java/lang/Object")) {
+            mv.visitTypeInsn(CHECKCAST, type.getInternalName());
+        }
+    }
+
+    private static String wrapper(Type type) {
+        switch (type.getSort()) {
+            case Type.BOOLEAN:
+                return "java/lang/Boolean";
+            case Type.CHAR:
+                return "java/lang/Character";
+            case Type.BYTE:
+                return "java/lang/Byte";
+            case Type.SHORT:
+                return "java/lang/Short";
+            case Type.INT:
+                return "java/lang/Integer";
+            case Type.FLOAT:
+                return "java/lang/Float";
+            case Type.LONG:
+                return "java/lang/Long";
+            case Type.DOUBLE:
+                return "java/lang/Double";
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package byx.aop.agent;
+
+import com.example.domain.Service;
+import com.example.domain.TraceAdvice;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WeavingTransformerTest {
+    private static final AgentConfig CONFIG =
+            AgentConfig.parse("include=com.example.domain.*;advice=com.example.domain.TraceAdvice");
+
+    static {
+        AgentRuntime.init(CONFIG);
+    }
+
+    /**
+     * 模拟agent：加载需要织入的类时先经过WeavingTransformer，其它类交给父类加载器
+     */
+    private static class WeavingClassLoader extends ClassLoader {
+        private final WeavingTransformer transformer = new WeavingTransformer(CONFIG);
+
+        private WeavingClassLoader() {
+            super(WeavingTransformerTest.class.getClassLoader());
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> c = findLoadedClass(name);
+                if (c == null && CONFIG.shouldWeave(name)) {
+                    byte[] bytes = read(name);
+                    byte[] woven = transformer.transform(this, name.replace('.', '/'), null, null, bytes);
+                    if (woven != null) {
+                        c = defineClass(name, woven, 0, woven.length);
+                    }
+                }
+                if (c == null) {
+                    return super.loadClass(name, resolve);
+                }
+                if (resolve) {
+                    resolveClass(c);
+                }
+                return c;
+            }
+        }
+
+        private byte[] read(String name) throws ClassNotFoundException {
+            try (InputStream in = getParent().getResourceAsStream(name.replace('.', '/') + ".class")) {
+                if (in == null) {
+                    throw new ClassNotFoundException(name);
+                }
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                byte[] buffer = new byte[4096];
+                for (int n; (n = in.read(buffer)) > 0; ) {
+                    out.write(buffer, 0, n);
+                }
+                return out.toByteArray();
+            } catch (IOException e) {
+                throw new ClassNotFoundException(name, e);
+            }
+        }
+    }
+
+    private static Class<?> load() throws ClassNotFoundException {
+        TraceAdvice.CALLS.clear();
+        return new WeavingClassLoader().loadClass("com.example.domain.FinalService");
+    }
+
+    private static Service newService(Class<?> type) throws ReflectiveOperationException {
+        return (Service) type.getConstructor().newInstance();
+    }
+
+    @Test
+    public void testFinalClass() throws Exception {
+        Class<?> type = load();
+        Service service = newService(type);
+        assertNotSame(type.getClassLoader(), Service.class.getClassLoader());
+        assertTrue(Modifier.isFinal(type.getModifiers()));
+        assertEquals(9, service.outer(4));
+        // 自调用的inner也被增强
+        assertEquals(Arrays.asList("outer", "inner"), TraceAdvice.CALLS);
+    }
+
+    @Test
+    public void testStaticMethod() throws Exception {
+        Class<?> type = load();
+        Method greet = type.getMethod("greet", String.class, int.class);
+        assertEquals("hello byx;hello byx;", greet.invoke(null, "byx", 2));
+        assertEquals(Arrays.asList("greet"), TraceAdvice.CALLS);
+    }
+
+    @Test
+    public void testPrimitives() throws Exception {
+        Service service = newService(load());
+        assertEquals('b', service.nextChar('a'));
+        assertEquals(50L, service.add(2L, 3));
+        assertEquals(1.25, service.half(2.5), 0.0);
+        assertFalse(service.not(true));
+        service.set(1L << 40);
+        assertEquals(1L << 40, service.get());
+        assertEquals(Arrays.asList("nextChar", "add", "half", "not", "set", "get"), TraceAdvice.CALLS);
+    }
+
+    @Test
+    public void testSynchronized() throws Exception {
+        Class<?> type = load();
+        assertTrue(newService(type).holdsLock());
+        // 锁由保存原方法体的方法获取，对外的方法不再是synchronized
+        Method original = type.getDeclaredMethod(WeavingTransformer.ORIGINAL_PREFIX + "holdsLock");
+        assertTrue(Modifier.isSynchronized(original.getModifiers()));
+        assertFalse(Modifier.isSynchronized(type.getMethod("holdsLock").getModifiers()));
+    }
+
+    @Test
+    public void testCheckedException() throws Exception {
+        Service service = newService(load());
+        IOException e = assertThrows(IOException.class, service::fail);
+        assertEquals("fail", e.getMessage());
+        assertEquals(Arrays.asList("fail"), TraceAdvice.CALLS);
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.domain;
+
+import java.io.IOException;
+
+public final class FinalService implements Service {
+    private long value;
+
+    @Override
+    public int outer(int n) {
+        return inner(n) + 1;
+    }
+
+    @Override
+    public int inner(int n) {
+        return n * 2;
+    }
+
+    @Override
+    public char nextChar(char c) {
+        return (char) (c + 1);
+    }
+
+    @Override
+    public long add(long a, int b) {
+        return a + b;
+    }
+
+    @Override
+    public double half(double d) {
+        return d / 2;
+    }
+
+    @Override
+    public boolean not(boolean b) {
+        return !b;
+    }
+
+    @Override
+    public void set(long value) {
+        this.value = value;
+    }
+
+    @Override
+    public long get() {
+        return value;
+    }
+
+    @Override
+    public synchronized boolean holdsLock() {
+        return Thread.holdsLock(this);
+    }
+
+    @Override
+    public void fail() throws IOException {
+        throw new IOException("fail");
+    }
+
+    public static String greet(String name, int times) {
+        StringBuilder s = new StringBuilder();
+        for (int i = 0; i < times; ++i) {
+            s.append("hello ").append(name).append(';');
+        }
+        return s.toString();
+    }
+}
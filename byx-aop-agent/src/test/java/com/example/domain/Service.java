@@ -0,0 +1,25 @@
+package com.example.domain;
+
+import java.io.IOException;
+
+public interface Service {
+    int outer(int n);
+
+    int inner(int n);
+
+    char nextChar(char c);
+
+    long add(long a, int b);
+
+    double half(double d);
+
+    boolean not(boolean b);
+
+    void set(long value);
+
+    long get();
+
+    boolean holdsLock();
+
+    void fail() throws IOException;
+}
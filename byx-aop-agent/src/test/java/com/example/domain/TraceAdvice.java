@@ -0,0 +1,25 @@
+package com.example.domain;
+
+import byx.aop.annotation.After;
+import byx.aop.annotation.Around;
+import byx.aop.annotation.Filter;
+import byx.util.proxy.core.TargetMethod;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class TraceAdvice {
+    public static final List<String> CALLS = new CopyOnWriteArrayList<>();
+
+    @Around
+    public Object trace(TargetMethod targetMethod) {
+        CALLS.add(targetMethod.getSignature().getName());
+        return targetMethod.invokeWithOriginalParams();
+    }
+
+    @After
+    @Filter(name = "add")
+    public long afterAdd(long ret) {
+        return ret * 10;
+    }
+}
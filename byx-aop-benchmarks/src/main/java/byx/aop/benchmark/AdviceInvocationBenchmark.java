@@ -0,0 +1,56 @@
+package byx.aop.benchmark;
+
+import byx.aop.ByxAOP;
+import byx.aop.WeaveMode;
+import byx.util.proxy.ProxyType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每种增强类型的单次调用开销，raw为不经过代理的直接调用
+ *
+ * @author byx
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AdviceInvocationBenchmark {
+    @Param({"before", "after", "around", "replace", "afterThrowing", "circuitBreaker"})
+    private String adviceType;
+
+    @Param({"JDK", "BYTE_BUDDY", "AUTO"})
+    private ProxyType proxyType;
+
+    @Param({"CHAIN", "INLINE"})
+    private WeaveMode weaveMode;
+
+    private Calculator raw;
+    private Calculator proxy;
+    private int a = 1;
+    private int b = 2;
+
+    @Setup
+    public void setup() {
+        raw = new CalculatorImpl();
+        proxy = ByxAOP.getAopProxy(new CalculatorImpl(), proxyType, weaveMode, Advices.create(adviceType));
+    }
+
+    @Benchmark
+    public int raw() {
+        return raw.add(a, b);
+    }
+
+    @Benchmark
+    public int proxied() {
+        return "afterThrowing".equals(adviceType) ? proxy.fail(a) : proxy.add(a, b);
+    }
+
+    @Benchmark
+    public String unadvisedMethod() {
+        return proxy.echo("x");
+    }
+}
@@ -0,0 +1,97 @@
+package byx.aop.benchmark;
+
+import byx.aop.annotation.*;
+import byx.util.proxy.core.TargetMethod;
+
+/**
+ * 测试用的增强类，每个增强方法都只做最少的工作
+ *
+ * @author byx
+ */
+public class Advices {
+    public static class BeforeAdvice {
+        @Before
+        @Filter(name = "add")
+        public void beforeAdd(int a, int b) {
+        }
+    }
+
+    public static class AfterAdvice {
+        @After
+        @Filter(name = "add")
+        public int afterAdd(int ret) {
+            return ret;
+        }
+    }
+
+    public static class AroundAdvice {
+        @Around
+        @Filter(name = "add")
+        public Object aroundAdd(TargetMethod targetMethod) {
+            return targetMethod.invokeWithOriginalParams();
+        }
+    }
+
+    public static class ReplaceAdvice {
+        @Replace
+        @Filter(name = "add")
+        public int replaceAdd(int a, int b) {
+            return a + b;
+        }
+    }
+
+    public static class AfterThrowingAdvice {
+        @AfterThrowing
+        @Filter(name = "fail")
+        public int afterThrowingFail(IllegalStateException e) {
+            return -1;
+        }
+    }
+
+    public static class CircuitBreakerAdvice {
+        @CircuitBreaker
+        @Filter(name = "add")
+        public void breakAdd() {
+        }
+    }
+
+    public static class NameFilterAdvice {
+        @Before
+        @Filter(name = "add")
+        public void beforeAdd() {
+        }
+    }
+
+    public static class PatternFilterAdvice {
+        @Before
+        @Filter(pattern = "ad.*")
+        public void beforeAdd() {
+        }
+    }
+
+    /**
+     * 创建指定类型的增强对象
+     */
+    public static Object create(String type) {
+        switch (type) {
+            case "before":
+                return new BeforeAdvice();
+            case "after":
+                return new AfterAdvice();
+            case "around":
+                return new AroundAdvice();
+            case "replace":
+                return new ReplaceAdvice();
+            case "afterThrowing":
+                return new AfterThrowingAdvice();
+            case "circuitBreaker":
+                return new CircuitBreakerAdvice();
+            case "name":
+                return new NameFilterAdvice();
+            case "pattern":
+                return new PatternFilterAdvice();
+            default:
+                throw new IllegalArgumentException("Unknown advice type: " + type);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package byx.aop.benchmark;
+
+/**
+ * 被代理的目标接口
+ *
+ * @author byx
+ */
+public interface Calculator {
+    int add(int a, int b);
+
+    String echo(String s);
+
+    int fail(int a);
+}
@@ -0,0 +1,23 @@
+package byx.aop.benchmark;
+
+/**
+ * 被代理的目标对象
+ *
+ * @author byx
+ */
+public class CalculatorImpl implements Calculator {
+    @Override
+    public int add(int a, int b) {
+        return a + b;
+    }
+
+    @Override
+    public String echo(String s) {
+        return s;
+    }
+
+    @Override
+    public int fail(int a) {
+        throw new IllegalStateException();
+    }
+}
@@ -0,0 +1,48 @@
+package byx.aop.benchmark;
+
+import byx.aop.ByxAOP;
+import byx.aop.WeaveMode;
+import byx.util.proxy.ProxyType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 拦截器链深度对调用开销的影响
+ *
+ * @author byx
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChainDepthBenchmark {
+    @Param({"1", "2", "4", "8", "16", "32"})
+    private int depth;
+
+    @Param({"before", "around"})
+    private String adviceType;
+
+    @Param({"CHAIN", "INLINE"})
+    private WeaveMode weaveMode;
+
+    private Calculator proxy;
+    private int a = 1;
+    private int b = 2;
+
+    @Setup
+    public void setup() {
+        Object[] advices = new Object[depth];
+        for (int i = 0; i < depth; ++i) {
+            advices[i] = Advices.create(adviceType);
+        }
+        proxy = ByxAOP.getAopProxy(new CalculatorImpl(), ProxyType.JDK, weaveMode, advices);
+    }
+
+    @Benchmark
+    public int proxied() {
+        return proxy.add(a, b);
+    }
+}
@@ -0,0 +1,42 @@
+package byx.aop.benchmark;
+
+import byx.aop.ByxAOP;
+import byx.util.proxy.ProxyType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filter按方法名匹配与按模式匹配的开销
+ *
+ * @author byx
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FilterBenchmark {
+    @Param({"name", "pattern"})
+    private String filterType;
+
+    private Calculator proxy;
+    private int a = 1;
+    private int b = 2;
+
+    @Setup
+    public void setup() {
+        proxy = ByxAOP.getAopProxy(new CalculatorImpl(), ProxyType.JDK, Advices.create(filterType));
+    }
+
+    @Benchmark
+    public int matched() {
+        return proxy.add(a, b);
+    }
+
+    @Benchmark
+    public String unmatched() {
+        return proxy.echo("x");
+    }
+}
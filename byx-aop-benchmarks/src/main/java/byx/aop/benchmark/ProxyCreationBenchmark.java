@@ -0,0 +1,43 @@
+package byx.aop.benchmark;
+
+import byx.aop.AopProxyFactory;
+import byx.aop.ByxAOP;
+import byx.util.proxy.ProxyType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 代理对象的创建开销
+ *
+ * @author byx
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProxyCreationBenchmark {
+    @Param({"JDK", "BYTE_BUDDY", "AUTO"})
+    private ProxyType proxyType;
+
+    private Object[] advices;
+    private AopProxyFactory<Calculator> factory;
+
+    @Setup
+    public void setup() {
+        advices = new Object[]{new Advices.BeforeAdvice(), new Advices.AfterAdvice(), new Advices.AroundAdvice()};
+        factory = ByxAOP.factory(Calculator.class, proxyType, advices);
+    }
+
+    @Benchmark
+    public Calculator getAopProxy() {
+        return ByxAOP.getAopProxy(new CalculatorImpl(), proxyType, advices);
+    }
+
+    @Benchmark
+    public Calculator factoryWrap() {
+        return factory.wrap(new CalculatorImpl());
+    }
+}
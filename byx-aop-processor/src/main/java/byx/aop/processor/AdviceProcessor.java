@@ -0,0 +1,249 @@
+package byx.aop.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 在编译期为增强类生成byx.aop.GeneratedAdvice的实现
+ * 生成的类记录增强类中的所有增强方法，并直接调用这些方法，运行时不再需要反射调用增强方法
+ * 同时生成GraalVM native-image所需的反射配置
+ *
+ * @author byx
+ */
+@SupportedAnnotationTypes({
+        "byx.aop.annotation.Before",
+        "byx.aop.annotation.After",
+        "byx.aop.annotation.Around",
+        "byx.aop.annotation.Replace",
+        "byx.aop.annotation.AfterThrowing",
+        "byx.aop.annotation.Timed",
+        "byx.aop.annotation.Cacheable",
+        "byx.aop.annotation.AfterBatch",
+        "byx.aop.annotation.Retry",
+        "byx.aop.annotation.Bulkhead",
+        "byx.aop.annotation.CircuitBreaker"
+})
+public class AdviceProcessor extends AbstractProcessor {
+    private static final String SUFFIX = "$$ByxAdvice";
+    private static final int MAX_FIXED_ARITY = 4;
+    private static final String REFLECT_CONFIG = "META-INF/native-image/byx-aop/reflect-config.json";
+
+    private final Set<String> processed = new HashSet<>();
+    private final List<String> reflectConfig = new ArrayList<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            writeReflectConfig();
+            return false;
+        }
+
+        Set<TypeElement> adviceClasses = new LinkedHashSet<>();
+        for (TypeElement annotation : annotations) {
+            for (Element e : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (e.getKind() == ElementKind.METHOD && e.getEnclosingElement() instanceof TypeElement) {
+                    adviceClasses.add((TypeElement) e.getEnclosingElement());
+                }
+            }
+        }
+        for (TypeElement adviceClass : adviceClasses) {
+            if (processed.add(adviceClass.getQualifiedName().toString()) && isAccessible(adviceClass)) {
+                generate(adviceClass);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 生成的类与增强类位于同一个包中，只能访问非private的具体类
+     */
+    private static boolean isAccessible(TypeElement type) {
+        if (type.getKind() != ElementKind.CLASS || type.getModifiers().contains(Modifier.ABSTRACT)) {
+            return false;
+        }
+        for (Element e = type; e instanceof TypeElement; e = e.getEnclosingElement()) {
+            TypeElement t = (TypeElement) e;
+            if (t.getModifiers().contains(Modifier.PRIVATE)
+                    || t.getNestingKind() == NestingKind.LOCAL || t.getNestingKind() == NestingKind.ANONYMOUS) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 与运行时的Class.getMethods一致，只处理public方法，包括继承的方法
+     */
+    private List<ExecutableElement> adviceMethods(TypeElement adviceClass) {
+        return ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(adviceClass)).stream()
+                .filter(m -> m.getModifiers().contains(Modifier.PUBLIC))
+                .filter(m -> m.getAnnotationMirrors().stream()
+                        .map(a -> ((TypeElement) a.getAnnotationType().asElement()).getQualifiedName().toString())
+                        .anyMatch(getSupportedAnnotationTypes()::contains))
+                .collect(Collectors.toList());
+    }
+
+    private void generate(TypeElement adviceClass) {
+        String packageName = processingEnv.getElementUtils().getPackageOf(adviceClass).getQualifiedName().toString();
+        String binaryName = processingEnv.getElementUtils().getBinaryName(adviceClass).toString();
+        String simpleName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1)) + SUFFIX;
+        String generatedName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+        String adviceType = processingEnv.getTypeUtils().erasure(adviceClass.asType()).toString();
+        List<ExecutableElement> methods = adviceMethods(adviceClass);
+
+        StringBuilder names = new StringBuilder();
+        StringBuilder parameterTypes = new StringBuilder();
+        StringBuilder cases = new StringBuilder();
+        Map<Integer, StringBuilder> fixedCases = new TreeMap<>();
+        StringBuilder config = new StringBuilder();
+        for (int i = 0; i < methods.size(); ++i) {
+            ExecutableElement m = methods.get(i);
+            List<TypeMirror> params = m.getParameters().stream()
+                    .map(p -> processingEnv.getTypeUtils().erasure(p.asType()))
+                    .collect(Collectors.toList());
+            String name = m.getSimpleName().toString();
+
+            names.append(i == 0 ? "" : ", ").append('"').append(name).append('"');
+            parameterTypes.append(i == 0 ? "" : ",").append("\n                {")
+                    .append(params.stream().map(t -> t + ".class").collect(Collectors.joining(", ")))
+                    .append('}');
+
+            String receiver = m.getModifiers().contains(Modifier.STATIC) ? adviceType : "((" + adviceType + ") advice)";
+            List<String> args = new ArrayList<>();
+            for (int j = 0; j < params.size(); ++j) {
+                args.add("(" + params.get(j) + ") args[" + j + "]");
+            }
+            appendCase(cases, i, receiver + "." + name + "(" + String.join(", ", args) + ")", m);
+
+            // 参数个数较少的方法同时生成固定参数个数的调用，不需要参数数组
+            if (params.size() <= MAX_FIXED_ARITY) {
+                List<String> fixedArgs = new ArrayList<>();
+                for (int j = 0; j < params.size(); ++j) {
+                    fixedArgs.add("(" + params.get(j) + ") a" + j);
+                }
+                appendCase(fixedCases.computeIfAbsent(params.size(), k -> new StringBuilder()), i,
+                        receiver + "." + name + "(" + String.join(", ", fixedArgs) + ")", m);
+            }
+
+            config.append(i == 0 ? "" : ",").append("\n      {\"name\": \"").append(name).append("\", \"parameterTypes\": [")
+                    .append(params.stream().map(t -> "\"" + binaryName(t) + "\"").collect(Collectors.joining(", ")))
+                    .append("]}");
+        }
+
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("// Generated by ").append(AdviceProcessor.class.getName()).append(", do not edit\n")
+                .append("public final class ").append(simpleName).append(" implements byx.aop.GeneratedAdvice {\n")
+                .append("    @Override\n")
+                .append("    public String[] getMethodNames() {\n")
+                .append("        return new String[]{").append(names).append("};\n")
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    public Class<?>[][] getParameterTypes() {\n")
+                .append("        return new Class<?>[][]{").append(parameterTypes).append("\n        };\n")
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    @SuppressWarnings({\"rawtypes\", \"unchecked\"})\n")
+                .append("    public Object invoke(Object advice, int index, Object[] args) throws Throwable {\n")
+                .append("        switch (index) {\n")
+                .append(cases)
+                .append("            default:\n")
+                .append("                throw new IllegalArgumentException(\"No advice method at index \" + index);\n")
+                .append("        }\n")
+                .append("    }\n");
+        for (Map.Entry<Integer, StringBuilder> e : fixedCases.entrySet()) {
+            StringBuilder params = new StringBuilder();
+            for (int j = 0; j < e.getKey(); ++j) {
+                params.append(", Object a").append(j);
+            }
+            source.append("\n")
+                    .append("    @Override\n")
+                    .append("    @SuppressWarnings({\"rawtypes\", \"unchecked\"})\n")
+                    .append("    public Object invoke").append(e.getKey()).append("(Object advice, int index")
+                    .append(params).append(") throws Throwable {\n")
+                    .append("        switch (index) {\n")
+                    .append(e.getValue())
+                    .append("            default:\n")
+                    .append("                throw new IllegalArgumentException(\"No advice method at index \" + index);\n")
+                    .append("        }\n")
+                    .append("    }\n");
+        }
+        source.append("}\n");
+
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(generatedName, adviceClass);
+            try (Writer writer = file.openWriter()) {
+                writer.write(source.toString());
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Cannot generate " + generatedName + ": " + e.getMessage(), adviceClass);
+            return;
+        }
+
+        reflectConfig.add("  {\n    \"name\": \"" + binaryName + "\",\n    \"methods\": [" + config + "\n    ]\n  }");
+        reflectConfig.add("  {\n    \"name\": \"" + (packageName.isEmpty() ? "" : packageName + ".") + simpleName
+                + "\",\n    \"methods\": [{\"name\": \"<init>\", \"parameterTypes\": []}]\n  }");
+    }
+
+    private static void appendCase(StringBuilder cases, int index, String call, ExecutableElement m) {
+        cases.append("            case ").append(index).append(":\n");
+        if (m.getReturnType().getKind() == TypeKind.VOID) {
+            cases.append("                ").append(call).append(";\n")
+                    .append("                return null;\n");
+        } else {
+            cases.append("                return ").append(call).append(";\n");
+        }
+    }
+
+    /**
+     * 反射配置中使用的类名，嵌套类使用$分隔
+     */
+    private String binaryName(TypeMirror type) {
+        if (type.getKind() == TypeKind.ARRAY) {
+            return binaryName(((ArrayType) type).getComponentType()) + "[]";
+        } else if (type.getKind() == TypeKind.DECLARED) {
+            TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+            return processingEnv.getElementUtils().getBinaryName(element).toString();
+        }
+        return type.toString();
+    }
+
+    private void writeReflectConfig() {
+        if (reflectConfig.isEmpty()) {
+            return;
+        }
+        try {
+            FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", REFLECT_CONFIG);
+            try (Writer writer = file.openWriter()) {
+                writer.write("[\n" + String.join(",\n", reflectConfig) + "\n]\n");
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    "Cannot write " + REFLECT_CONFIG + ": " + e.getMessage());
+        }
+    }
+}
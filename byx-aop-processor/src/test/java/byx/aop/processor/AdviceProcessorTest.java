@@ -0,0 +1,158 @@
+package byx.aop.processor;
+
+import byx.aop.ByxAOP;
+import byx.aop.GeneratedAdvice;
+import org.junit.jupiter.api.Test;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdviceProcessorTest {
+    private static final String CALC = "package sample;\n" +
+            "\n" +
+            "public class Calc {\n" +
+            "    public int f(int n) {\n" +
+            "        return n;\n" +
+            "    }\n" +
+            "\n" +
+            "    public String g(String s, long n, double d, char c, boolean b) {\n" +
+            "        return s + n + d + c + b;\n" +
+            "    }\n" +
+            "}\n";
+
+    private static final String CALC_ADVICE = "package sample;\n" +
+            "\n" +
+            "import byx.aop.annotation.*;\n" +
+            "import byx.util.proxy.core.TargetMethod;\n" +
+            "\n" +
+            "public class CalcAdvice {\n" +
+            "    public static int generatedCalls = 0;\n" +
+            "\n" +
+            "    @Before\n" +
+            "    @Filter(name = \"f\")\n" +
+            "    public Object[] before(int n) {\n" +
+            "        // 记录由生成的类调用的次数\n" +
+            "        if (new Throwable().getStackTrace()[1].getClassName().equals(\"sample.CalcAdvice$$ByxAdvice\")) {\n" +
+            "            generatedCalls++;\n" +
+            "        }\n" +
+            "        return new Object[]{n * 10};\n" +
+            "    }\n" +
+            "\n" +
+            "    @After\n" +
+            "    @Filter(name = \"f\")\n" +
+            "    public int after(int ret) {\n" +
+            "        return ret + 1;\n" +
+            "    }\n" +
+            "\n" +
+            "    @Around\n" +
+            "    @Filter(name = \"g\")\n" +
+            "    public Object around(TargetMethod targetMethod) throws Throwable {\n" +
+            "        return \"[\" + targetMethod.invokeWithOriginalParams() + \"]\";\n" +
+            "    }\n" +
+            "\n" +
+            "    @Before\n" +
+            "    @Filter(name = \"g\")\n" +
+            "    public Object[] manyParams(String s, long n, double d, char c, boolean b) {\n" +
+            "        return new Object[]{s.toUpperCase(), n + 1, d * 2, c, !b};\n" +
+            "    }\n" +
+            "\n" +
+            "    public void notAdvice() {\n" +
+            "    }\n" +
+            "}\n";
+
+    /**
+     * 使用AdviceProcessor编译示例增强类，返回加载编译结果的ClassLoader
+     */
+    private static URLClassLoader compile(Path dir) throws Exception {
+        Path src = Files.createDirectories(dir.resolve("src/sample"));
+        Path out = Files.createDirectories(dir.resolve("out"));
+        Files.write(src.resolve("Calc.java"), CALC.getBytes(StandardCharsets.UTF_8));
+        Files.write(src.resolve("CalcAdvice.java"), CALC_ADVICE.getBytes(StandardCharsets.UTF_8));
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8)) {
+            Iterable<? extends JavaFileObject> units = fileManager.getJavaFileObjects(
+                    src.resolve("Calc.java").toFile(), src.resolve("CalcAdvice.java").toFile());
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null,
+                    Arrays.asList("-d", out.toString(), "-classpath", System.getProperty("java.class.path")),
+                    null, units);
+            task.setProcessors(Collections.singletonList(new AdviceProcessor()));
+            assertTrue(task.call());
+        }
+        return new URLClassLoader(new URL[]{out.toUri().toURL()}, AdviceProcessorTest.class.getClassLoader());
+    }
+
+    @Test
+    public void testGenerate() throws Throwable {
+        Path dir = Files.createTempDirectory("byx-aop-processor");
+        try (URLClassLoader loader = compile(dir)) {
+            Class<?> adviceClass = loader.loadClass("sample.CalcAdvice");
+            Class<?> generatedClass = loader.loadClass("sample.CalcAdvice" + GeneratedAdvice.SUFFIX);
+            GeneratedAdvice generated = (GeneratedAdvice) generatedClass.getConstructor().newInstance();
+            Object advice = adviceClass.getConstructor().newInstance();
+
+            assertEquals(Arrays.asList("before", "after", "around", "manyParams"),
+                    Arrays.asList(generated.getMethodNames()));
+            assertFalse(Arrays.asList(generated.getMethodNames()).contains("notAdvice"));
+            String[] names = generated.getMethodNames();
+            Class<?>[][] parameterTypes = generated.getParameterTypes();
+            for (int i = 0; i < names.length; ++i) {
+                assertNotNull(adviceClass.getMethod(names[i], parameterTypes[i]));
+            }
+
+            int before = Arrays.asList(names).indexOf("before");
+            int manyParams = Arrays.asList(names).indexOf("manyParams");
+            assertArrayEquals(new Object[]{30}, (Object[]) generated.invoke1(advice, before, 3));
+            assertArrayEquals(new Object[]{30}, (Object[]) generated.invoke(advice, before, new Object[]{3}));
+            assertArrayEquals(new Object[]{"A", 2L, 6.0, 'c', false},
+                    (Object[]) generated.invoke(advice, manyParams, new Object[]{"a", 1L, 3.0, 'c', true}));
+            assertThrows(IllegalArgumentException.class, () -> generated.invoke1(advice, 100, 3));
+
+            assertTrue(Files.exists(dir.resolve("out/META-INF/native-image/byx-aop/reflect-config.json")));
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    public void testProxy() throws Exception {
+        Path dir = Files.createTempDirectory("byx-aop-processor");
+        try (URLClassLoader loader = compile(dir)) {
+            Object target = loader.loadClass("sample.Calc").getConstructor().newInstance();
+            Class<?> adviceClass = loader.loadClass("sample.CalcAdvice");
+            Object advice = adviceClass.getConstructor().newInstance();
+            Object proxy = ByxAOP.getAopProxy(target, advice);
+
+            assertEquals(31, proxy.getClass().getMethod("f", int.class).invoke(proxy, 3));
+            // 增强方法由生成的类调用，而不是通过反射
+            assertEquals(1, adviceClass.getField("generatedCalls").getInt(null));
+            assertEquals("[HELLO26.0cfalse]", proxy.getClass()
+                    .getMethod("g", String.class, long.class, double.class, char.class, boolean.class)
+                    .invoke(proxy, "hello", 1L, 3.0, 'c', true));
+        } finally {
+            delete(dir);
+        }
+    }
+
+    private static void delete(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path p : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(p);
+            }
+        }
+    }
+}
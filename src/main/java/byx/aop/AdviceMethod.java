@@ -0,0 +1,198 @@
+package byx.aop;
+
+import byx.aop.annotation.*;
+import byx.aop.exception.ByxAOPException;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * 增强类中一个增强方法的解析结果，与具体的增强对象无关
+ *
+ * @author byx
+ */
+class AdviceMethod {
+    private static final List<Class<? extends Annotation>> ADVICE_TYPES = Arrays.asList(
+            Before.class, After.class, Around.class, Replace.class, AfterThrowing.class, Timed.class, Cacheable.class,
+            AfterBatch.class, Retry.class, Bulkhead.class, CircuitBreaker.class);
+
+    private final Method method;
+    private final Class<? extends Annotation> type;
+    private final int order;
+    private final boolean async;
+    private final double sampleRate;
+    private final Filter filter;
+    private final String name;
+    private final Pattern pattern;
+    private final MethodHandle handle;
+
+    private AdviceMethod(Method method, Class<? extends Annotation> type, MethodHandle handle) {
+        this.method = method;
+        this.type = type;
+        if (method.isAnnotationPresent(Order.class)) {
+            this.order = method.getAnnotation(Order.class).value();
+        } else {
+            this.order = 1;
+        }
+        if (type == After.class) {
+            this.async = method.getAnnotation(After.class).async();
+        } else if (type == AfterThrowing.class) {
+            this.async = method.getAnnotation(AfterThrowing.class).async();
+        } else {
+            this.async = false;
+        }
+        if (method.isAnnotationPresent(Sampled.class)) {
+            this.sampleRate = method.getAnnotation(Sampled.class).rate();
+            if (!(sampleRate >= 0 && sampleRate <= 1)) {
+                throw new ByxAOPException("Illegal sample rate: " + method);
+            }
+        } else {
+            this.sampleRate = 1;
+        }
+        this.filter = method.getAnnotation(Filter.class);
+        if (filter != null && !"".equals(filter.name())) {
+            this.name = filter.name();
+            this.pattern = null;
+        } else if (filter != null && !"".equals(filter.pattern())) {
+            this.name = null;
+            this.pattern = compile(method, filter.pattern());
+        } else {
+            this.name = null;
+            this.pattern = null;
+        }
+        this.handle = handle != null ? handle : unreflect(method);
+    }
+
+    /**
+     * 解析增强方法，如果不是增强方法则返回null
+     */
+    static AdviceMethod parse(Method method) {
+        return parse(method, null);
+    }
+
+    /**
+     * 使用指定的方法句柄解析增强方法，如果不是增强方法则返回null
+     * @param handle 类型为(Object, Object, ...)Object的方法句柄，第一个参数是增强对象，为null时通过反射生成
+     */
+    static AdviceMethod parse(Method method, MethodHandle handle) {
+        for (Class<? extends Annotation> type : ADVICE_TYPES) {
+            if (method.isAnnotationPresent(type)) {
+                return new AdviceMethod(method, type, handle);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 判断方法是否有拦截类型注解
+     */
+    static boolean isAdviceMethod(Method method) {
+        for (Class<? extends Annotation> type : ADVICE_TYPES) {
+            if (method.isAnnotationPresent(type)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Pattern compile(Method method, String regex) {
+        try {
+            return Pattern.compile(regex);
+        } catch (PatternSyntaxException e) {
+            throw new ByxAOPException("Illegal filter pattern: " + method, e);
+        }
+    }
+
+    /**
+     * 生成类型为(Object, Object, ...)Object的方法句柄，第一个参数是增强对象
+     * 访问权限只在解析时检查一次
+     */
+    static MethodHandle unreflect(Method method) {
+        try {
+            method.setAccessible(true);
+            MethodHandle mh = MethodHandles.lookup().unreflect(method);
+            if (Modifier.isStatic(method.getModifiers())) {
+                mh = MethodHandles.dropArguments(mh, 0, Object.class);
+            }
+            return mh.asType(MethodType.genericMethodType(method.getParameterCount() + 1));
+        } catch (IllegalAccessException | RuntimeException e) {
+            throw new ByxAOPException("Cannot invoke method: " + method, e);
+        }
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    /**
+     * 拦截类型注解
+     */
+    public Class<? extends Annotation> getType() {
+        return type;
+    }
+
+    public int getOrder() {
+        return order;
+    }
+
+    /**
+     * 是否异步执行
+     */
+    public boolean isAsync() {
+        return async;
+    }
+
+    /**
+     * 执行增强的调用所占比例，没有Sampled注解时为1
+     */
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * Filter注解指定的方法名，没有指定时返回null
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 判断目标方法是否满足Filter注解的条件
+     */
+    public boolean matches(String name, Class<?> returnType, Class<?>[] parameterTypes) {
+        if (filter == null) {
+            return true;
+        }
+
+        if (this.name != null) {
+            if (!this.name.equals(name)) {
+                return false;
+            }
+        } else if (pattern != null) {
+            if (!pattern.matcher(name).matches()) {
+                return false;
+            }
+        }
+
+        if (filter.returnType() != Filter.Dummy.class && filter.returnType() != returnType) {
+            return false;
+        }
+        return filter.parameterTypes().length == 0
+                || Arrays.equals(filter.parameterTypes(), parameterTypes);
+    }
+
+    /**
+     * 把方法句柄绑定到增强对象上，得到类型为(Object, ...)Object的方法句柄
+     */
+    public MethodHandle bind(Object advice) {
+        return handle.bindTo(advice);
+    }
+}
@@ -0,0 +1,147 @@
+package byx.aop;
+
+import byx.aop.exception.ByxAOPException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import static java.lang.invoke.MethodType.methodType;
+
+/**
+ * 增强类的解析结果，按增强类缓存
+ * 缓存保存在ClassValue中，不会阻止增强类被卸载
+ * 如果存在编译期生成的GeneratedAdvice，并且与增强类中的增强方法一致，则使用其中的调用器调用增强方法
+ *
+ * @author byx
+ */
+class AdviceModel {
+    private static final ClassValue<AdviceModel> CACHE = new ClassValue<AdviceModel>() {
+        @Override
+        protected AdviceModel computeValue(Class<?> type) {
+            return new AdviceModel(type);
+        }
+    };
+
+    /**
+     * 调用GeneratedAdvice的方法句柄，类型为(GeneratedAdvice, Object, int, Object[])Object
+     */
+    private static final MethodHandle GENERATED_INVOKE;
+
+    /**
+     * 按参数个数调用GeneratedAdvice的方法句柄，第n个的类型为(GeneratedAdvice, Object, int, Object, ...)Object
+     */
+    private static final MethodHandle[] GENERATED_INVOKE_FIXED = new MethodHandle[GeneratedAdvice.MAX_FIXED_ARITY + 1];
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            GENERATED_INVOKE = lookup.findVirtual(GeneratedAdvice.class, "invoke",
+                    methodType(Object.class, Object.class, int.class, Object[].class));
+            for (int n = 0; n < GENERATED_INVOKE_FIXED.length; ++n) {
+                MethodType type = MethodType.genericMethodType(n + 2).changeParameterType(1, int.class);
+                GENERATED_INVOKE_FIXED[n] = lookup.findVirtual(GeneratedAdvice.class, "invoke" + n, type);
+            }
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new ByxAOPException("Cannot initialize method handles", e);
+        }
+    }
+
+    private final List<AdviceMethod> adviceMethods;
+
+    private AdviceModel(Class<?> adviceClass) {
+        List<AdviceMethod> methods = fromGenerated(adviceClass);
+        if (methods == null) {
+            methods = Arrays.stream(adviceClass.getMethods())
+                    .map(AdviceMethod::parse)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+        }
+        methods.sort(Comparator.comparingInt(AdviceMethod::getOrder));
+        this.adviceMethods = Collections.unmodifiableList(methods);
+    }
+
+    /**
+     * 使用编译期生成的GeneratedAdvice调用增强方法，不存在或者与增强类不一致时返回null
+     * 增强类中的增强方法与生成的类中记录的增强方法必须一一对应，增强类在生成之后增加或删除了增强方法都视为不一致
+     */
+    private static List<AdviceMethod> fromGenerated(Class<?> adviceClass) {
+        GeneratedAdvice generated;
+        try {
+            Class<?> c = Class.forName(adviceClass.getName() + GeneratedAdvice.SUFFIX, true, adviceClass.getClassLoader());
+            generated = (GeneratedAdvice) c.getConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError | ClassCastException e) {
+            return null;
+        }
+
+        String[] names = generated.getMethodNames();
+        Class<?>[][] parameterTypes = generated.getParameterTypes();
+        Map<String, Integer> indices = new HashMap<>();
+        for (int i = 0; i < names.length; ++i) {
+            indices.put(signature(names[i], parameterTypes[i]), i);
+        }
+
+        List<AdviceMethod> methods = new ArrayList<>();
+        for (Method method : adviceClass.getMethods()) {
+            if (method.isBridge()) {
+                continue;
+            }
+            Integer index = indices.remove(signature(method.getName(), method.getParameterTypes()));
+            if (index == null) {
+                if (AdviceMethod.isAdviceMethod(method)) {
+                    // 生成之后增加的增强方法
+                    return null;
+                }
+                continue;
+            }
+            AdviceMethod adviceMethod = AdviceMethod.parse(method, generatedHandle(generated, index, method.getParameterCount()));
+            if (adviceMethod == null) {
+                // 生成之后去掉了注解
+                return null;
+            }
+            methods.add(adviceMethod);
+        }
+        // 剩下的是生成之后删除的增强方法
+        return indices.isEmpty() ? methods : null;
+    }
+
+    private static String signature(String name, Class<?>[] parameterTypes) {
+        return name + Arrays.toString(parameterTypes);
+    }
+
+    /**
+     * 生成调用GeneratedAdvice的方法句柄，类型为(Object, Object, ...)Object，第一个参数是增强对象
+     * 参数个数不超过MAX_FIXED_ARITY时使用固定参数个数的调用方法，不创建参数数组
+     */
+    private static MethodHandle generatedHandle(GeneratedAdvice generated, int index, int parameterCount) {
+        if (parameterCount <= GeneratedAdvice.MAX_FIXED_ARITY) {
+            return MethodHandles.insertArguments(GENERATED_INVOKE_FIXED[parameterCount].bindTo(generated), 1, index);
+        }
+        return MethodHandles.insertArguments(GENERATED_INVOKE.bindTo(generated), 1, index)
+                .asCollector(Object[].class, parameterCount);
+    }
+
+    /**
+     * 获取增强类的解析结果
+     */
+    public static AdviceModel of(Class<?> adviceClass) {
+        return CACHE.get(adviceClass);
+    }
+
+    /**
+     * 按order排好序的增强方法
+     */
+    public List<AdviceMethod> getAdviceMethods() {
+        return adviceMethods;
+    }
+}
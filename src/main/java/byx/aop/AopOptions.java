@@ -0,0 +1,110 @@
+package byx.aop;
+
+import byx.util.proxy.ProxyType;
+
+import java.util.concurrent.Executor;
+
+/**
+ * 创建AOP代理时的选项
+ *
+ * @author byx
+ */
+public class AopOptions {
+    private ProxyType proxyType = ProxyType.AUTO;
+    private WeaveMode weaveMode = WeaveMode.CHAIN;
+    private boolean globalOrder = false;
+    private Executor asyncExecutor = null;
+    private boolean rethrowCheckedExceptions = false;
+    private boolean stacklessExceptions = false;
+    private boolean stats = false;
+
+    /**
+     * 代理类型，默认为ProxyType.AUTO
+     */
+    public AopOptions proxyType(ProxyType proxyType) {
+        this.proxyType = proxyType;
+        return this;
+    }
+
+    /**
+     * 织入方式，默认为WeaveMode.CHAIN
+     */
+    public AopOptions weaveMode(WeaveMode weaveMode) {
+        this.weaveMode = weaveMode;
+        return this;
+    }
+
+    /**
+     * 是否把所有增强对象中的增强方法放在一起按order排序，默认为false
+     * 为false时只在每个增强对象内部排序，增强对象之间按传入的先后顺序排列
+     */
+    public AopOptions globalOrder(boolean globalOrder) {
+        this.globalOrder = globalOrder;
+        return this;
+    }
+
+    /**
+     * 执行异步增强的执行器，默认为AsyncExecutors.defaultExecutor()
+     * 可以通过AsyncExecutors.bounded指定任务数上限和队列满时的处理方式
+     */
+    public AopOptions asyncExecutor(Executor asyncExecutor) {
+        this.asyncExecutor = asyncExecutor;
+        return this;
+    }
+
+    /**
+     * 增强方法抛出受检异常时，是否原样抛出该异常，默认为false
+     * 为false时抛出ByxAOPException，原异常作为cause
+     */
+    public AopOptions rethrowCheckedExceptions(boolean rethrowCheckedExceptions) {
+        this.rethrowCheckedExceptions = rethrowCheckedExceptions;
+        return this;
+    }
+
+    /**
+     * 框架在调用过程中抛出的ByxAOPException是否不记录调用栈，默认为false
+     * 适用于通过异常控制流程、异常抛出频繁的场景
+     */
+    public AopOptions stacklessExceptions(boolean stacklessExceptions) {
+        this.stacklessExceptions = stacklessExceptions;
+        return this;
+    }
+
+    /**
+     * 是否记录每个方法和增强方法的调用次数、耗时和异常次数，默认为false
+     * 开启后可以通过ByxAOP.stats(proxy)或AopProxyFactory.getStats()获取统计结果
+     * 关闭时不产生任何额外开销
+     */
+    public AopOptions stats(boolean stats) {
+        this.stats = stats;
+        return this;
+    }
+
+    public ProxyType getProxyType() {
+        return proxyType;
+    }
+
+    public WeaveMode getWeaveMode() {
+        return weaveMode;
+    }
+
+    public boolean isGlobalOrder() {
+        return globalOrder;
+    }
+
+    public Executor getAsyncExecutor() {
+        return asyncExecutor == null ? AsyncExecutors.defaultExecutor() : asyncExecutor;
+    }
+
+    public boolean isRethrowCheckedExceptions() {
+        return rethrowCheckedExceptions;
+    }
+
+    public boolean isStacklessExceptions() {
+        return stacklessExceptions;
+    }
+
+    public boolean isStats() {
+        return stats;
+    }
+}
@@ -0,0 +1,148 @@
+package byx.aop;
+
+import byx.aop.exception.ByxAOPException;
+import byx.aop.metrics.AopStats;
+import byx.util.proxy.ProxyType;
+import byx.util.proxy.ProxyUtils;
+import byx.util.proxy.core.MethodInterceptor;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 可重复使用的AOP代理工厂
+ * 增强类的解析、排序和拦截器链的生成只在创建工厂时进行一次，之后可以用同一个工厂代理任意多个目标对象
+ * 工厂创建的所有代理对象共用一个拦截器分派表，可以通过工厂在运行时启用、禁用或替换增强
+ *
+ * @param <T> 目标对象类型
+ * @author byx
+ */
+public class AopProxyFactory<T> {
+    private final ProxyType type;
+    private final AopOptions options;
+    private final AopStats stats;
+    private final InterceptorTable interceptorTable;
+    private List<MethodInterceptorDefinition> definitions;
+    private final Set<MethodInterceptorDefinition> disabled = new HashSet<>();
+
+    AopProxyFactory(Class<?> targetType, AopOptions options, Object... advices) {
+        this.type = options.getProxyType();
+        this.options = options;
+        this.definitions = createDefinitions(options, advices);
+        this.stats = options.isStats() ? new AopStats() : null;
+        this.interceptorTable = new InterceptorTable(targetType, definitions, options.getWeaveMode(), stats);
+    }
+
+    private static List<MethodInterceptorDefinition> createDefinitions(AopOptions options, Object... advices) {
+        // 1. 获取增强类（advice）的解析结果，同一个增强类只解析一次
+        // 2. 把解析出的增强方法绑定到增强对象上，封装成MethodInterceptorDefinition
+        // 3. 如果指定了全局排序，则把所有增强对象的增强方法放在一起按order排序
+        List<MethodInterceptorDefinition> definitions = Arrays.stream(advices)
+                .flatMap(advice -> AdviceModel.of(advice.getClass())
+                        .getAdviceMethods()
+                        .stream()
+                        .map(m -> new MethodInterceptorDefinition(advice, m, options)))
+                .collect(Collectors.toList());
+        if (options.isGlobalOrder()) {
+            definitions.sort(Comparator.comparingInt(MethodInterceptorDefinition::getOrder));
+        }
+        return definitions;
+    }
+
+    /**
+     * 启用或禁用增强对象的所有增强方法，对已经创建的代理对象立即生效
+     * @param advice 创建工厂时传入的增强对象
+     * @param enabled 是否启用
+     */
+    public synchronized void setEnabled(Object advice, boolean enabled) {
+        setEnabled(advice, null, enabled);
+    }
+
+    /**
+     * 启用或禁用增强对象中的指定增强方法，对已经创建的代理对象立即生效
+     * @param advice 创建工厂时传入的增强对象
+     * @param methodName 增强方法名，为null时表示所有增强方法
+     * @param enabled 是否启用
+     */
+    public synchronized void setEnabled(Object advice, String methodName, boolean enabled) {
+        List<MethodInterceptorDefinition> matched = definitions.stream()
+                .filter(d -> d.getAdvice() == advice)
+                .filter(d -> methodName == null || d.getMethod().getName().equals(methodName))
+                .collect(Collectors.toList());
+        if (matched.isEmpty()) {
+            throw new ByxAOPException("No such advice method: " + advice.getClass().getName()
+                    + (methodName == null ? "" : "." + methodName));
+        }
+        if (enabled) {
+            disabled.removeAll(matched);
+        } else {
+            disabled.addAll(matched);
+        }
+        publish();
+    }
+
+    /**
+     * 把所有增强对象替换成新的增强对象，对已经创建的代理对象立即生效，之前禁用的增强方法不再保留
+     * @param advices 新的增强对象
+     */
+    public synchronized void setAdvices(Object... advices) {
+        definitions = createDefinitions(options, advices);
+        disabled.clear();
+        publish();
+    }
+
+    private void publish() {
+        interceptorTable.setDefinitions(definitions, new HashSet<>(disabled));
+    }
+
+    /**
+     * 预先解析目标类型中所有public方法的拦截器链
+     */
+    void prepare() {
+        interceptorTable.prepare();
+    }
+
+    /**
+     * 获取工厂创建的代理对象共用的拦截器，用于不通过代理对象织入增强的场景（如byx-aop-agent）
+     * 拦截器根据TargetMethod的方法签名分派到对应的拦截器链
+     */
+    public MethodInterceptor getInterceptor() {
+        return interceptorTable;
+    }
+
+    /**
+     * 获取工厂创建的所有代理对象的调用统计
+     * @return 调用统计，创建工厂时没有开启统计则返回null
+     */
+    public AopStats getStats() {
+        return stats;
+    }
+
+    /**
+     * 获取目标对象的AOP代理对象
+     * @param target 目标对象
+     * @return 已增强的对象
+     */
+    public T wrap(T target) {
+        T proxy;
+        switch (type) {
+            case JDK:
+                proxy = ProxyUtils.proxy(target, interceptorTable, ProxyType.JDK);
+                break;
+            case BYTE_BUDDY:
+                proxy = ProxyUtils.proxy(target, interceptorTable, ProxyType.BYTE_BUDDY);
+                break;
+            default:
+                proxy = ProxyUtils.proxy(target, interceptorTable);
+                break;
+        }
+        if (stats != null) {
+            ProxyRegistry.register(proxy, this);
+        }
+        return proxy;
+    }
+}
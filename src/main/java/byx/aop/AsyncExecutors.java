@@ -0,0 +1,135 @@
+package byx.aop;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 异步增强使用的执行器
+ * 运行时支持虚拟线程时每个任务使用一个虚拟线程，否则使用固定大小的守护线程池
+ * 同时等待和执行的任务数有上限，超过上限时按RejectPolicy处理
+ *
+ * @author byx
+ */
+public class AsyncExecutors {
+    private static final int DEFAULT_QUEUE_SIZE = 10000;
+
+    private static class Holder {
+        private static final Executor DEFAULT = bounded(DEFAULT_QUEUE_SIZE, RejectPolicy.CALLER_RUNS);
+    }
+
+    private static class BoundedExecutor implements Executor {
+        private final ExecutorService delegate;
+        private final Semaphore permits;
+        private final RejectPolicy policy;
+        private final LongAdder discarded = new LongAdder();
+
+        private BoundedExecutor(ExecutorService delegate, int queueSize, RejectPolicy policy) {
+            this.delegate = delegate;
+            this.permits = new Semaphore(queueSize);
+            this.policy = policy;
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            if (!tryExecute(task)) {
+                reject(task);
+            }
+        }
+
+        /**
+         * 提交任务，队列已满时返回false，不执行拒绝策略
+         */
+        private boolean tryExecute(Runnable task) {
+            if (!permits.tryAcquire()) {
+                return false;
+            }
+            try {
+                delegate.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        permits.release();
+                    }
+                });
+                return true;
+            } catch (RejectedExecutionException e) {
+                permits.release();
+                return false;
+            }
+        }
+
+        private void reject(Runnable task) {
+            switch (policy) {
+                case CALLER_RUNS:
+                    task.run();
+                    break;
+                case DISCARD:
+                    discarded.increment();
+                    break;
+                default:
+                    throw new RejectedExecutionException("Async advice queue is full");
+            }
+        }
+    }
+
+    /**
+     * 所有异步增强默认共用的执行器，最多容纳10000个任务，队列满时在调用线程中执行
+     */
+    public static Executor defaultExecutor() {
+        return Holder.DEFAULT;
+    }
+
+    /**
+     * 创建有任务数上限的执行器
+     * @param queueSize 同时等待和执行的任务数上限
+     * @param policy 超过上限时的处理方式
+     * @return 执行器
+     */
+    public static Executor bounded(int queueSize, RejectPolicy policy) {
+        if (queueSize <= 0) {
+            throw new IllegalArgumentException("queueSize must be positive: " + queueSize);
+        }
+        return new BoundedExecutor(newExecutorService(), queueSize, policy);
+    }
+
+    /**
+     * 获取执行器因队列已满而丢弃的任务数，只对bounded创建且策略为DISCARD的执行器有效
+     */
+    public static long discardedCount(Executor executor) {
+        return executor instanceof BoundedExecutor ? ((BoundedExecutor) executor).discarded.sum() : 0;
+    }
+
+    /**
+     * 提交不能被丢弃、也不能在调用线程中执行的任务（如异步重试），不使用执行器的拒绝策略
+     * @return 执行器已满或拒绝了任务时返回false
+     */
+    static boolean tryExecute(Executor executor, Runnable task) {
+        if (executor instanceof BoundedExecutor) {
+            return ((BoundedExecutor) executor).tryExecute(task);
+        }
+        try {
+            executor.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    private static ExecutorService newExecutorService() {
+        try {
+            Method m = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) m.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // 不支持虚拟线程，使用守护线程池
+            AtomicInteger counter = new AtomicInteger();
+            int n = Runtime.getRuntime().availableProcessors();
+            return Executors.newFixedThreadPool(n, r -> {
+                Thread t = new Thread(r, "byx-aop-async-" + counter.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+}
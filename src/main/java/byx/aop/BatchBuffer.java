@@ -0,0 +1,258 @@
+package byx.aop;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * AfterBatch增强的调用记录缓冲区
+ * 多个调用线程通过CAS向环形数组写入记录，不加锁
+ * 同一时刻只有一个线程取出记录并交给处理方法，记录数达到一批时在后台线程中处理，
+ * 缓冲区写满时由调用线程自己处理，避免无限堆积
+ * 同一个增强对象的同一个增强方法共用一个缓冲区，多个代理对象的记录合并成批
+ * 缓冲区中有未处理的记录时，缓冲区被全局集合强引用，即使代理对象已经被回收，记录也不会丢失
+ *
+ * @author byx
+ */
+class BatchBuffer {
+    private static class Holder {
+        private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "byx-aop-batch");
+            t.setDaemon(true);
+            return t;
+        });
+        /**
+         * 有未处理记录的缓冲区
+         */
+        private static final Set<BatchBuffer> PENDING = new HashSet<>();
+
+        /**
+         * 增强对象 -> 增强方法 -> 缓冲区，增强对象和缓冲区都是弱引用
+         */
+        private static final Map<WeakIdentityKey, Map<Method, WeakReference<BatchBuffer>>> SHARED = new HashMap<>();
+        private static final ReferenceQueue<Object> QUEUE = new ReferenceQueue<>();
+
+        static {
+            // 退出前处理缓冲区中剩余的记录
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                List<BatchBuffer> buffers;
+                synchronized (PENDING) {
+                    buffers = new ArrayList<>(PENDING);
+                }
+                buffers.forEach(BatchBuffer::drain);
+            }, "byx-aop-batch-shutdown"));
+        }
+    }
+
+    /**
+     * 定时处理缓冲区，缓冲区被回收后自动取消
+     */
+    private static class Ticker implements Runnable {
+        private final WeakReference<BatchBuffer> ref;
+        private volatile ScheduledFuture<?> future;
+
+        private Ticker(BatchBuffer buffer) {
+            this.ref = new WeakReference<>(buffer);
+        }
+
+        @Override
+        public void run() {
+            BatchBuffer buffer = ref.get();
+            if (buffer != null) {
+                buffer.drain();
+            } else if (future != null) {
+                future.cancel(false);
+            }
+        }
+    }
+
+    private final int batchSize;
+    private final int mask;
+    private final AtomicReferenceArray<Invocation> slots;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head = 0;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private volatile boolean pending = false;
+    private final Consumer<List<Invocation>> sink;
+
+    /**
+     * @param batchSize 每批最多包含的记录数
+     * @param intervalNanos 定时处理的间隔，0表示不定时处理
+     * @param sink 处理一批记录的方法
+     */
+    BatchBuffer(int batchSize, long intervalNanos, Consumer<List<Invocation>> sink) {
+        this.batchSize = batchSize;
+        // 容量取不小于4批的2的幂，便于用位运算计算下标
+        int capacity = Integer.highestOneBit(Math.max(batchSize * 4 - 1, 1)) << 1;
+        this.mask = capacity - 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; ++i) {
+            sequences.set(i, i);
+        }
+        this.sink = sink;
+
+        if (intervalNanos > 0) {
+            Ticker ticker = new Ticker(this);
+            ticker.future = Holder.SCHEDULER.scheduleWithFixedDelay(ticker, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 获取增强对象的增强方法共用的缓冲区，不存在或已被回收时创建
+     * @param advice 增强对象
+     * @param method 增强方法
+     */
+    static BatchBuffer shared(Object advice, Method method, int batchSize, long intervalNanos,
+                              Consumer<List<Invocation>> sink) {
+        synchronized (Holder.SHARED) {
+            for (Object ref; (ref = Holder.QUEUE.poll()) != null; ) {
+                Holder.SHARED.remove(ref);
+            }
+            Map<Method, WeakReference<BatchBuffer>> buffers = Holder.SHARED.computeIfAbsent(
+                    new WeakIdentityKey(advice, Holder.QUEUE), k -> new HashMap<>());
+            WeakReference<BatchBuffer> ref = buffers.get(method);
+            BatchBuffer buffer = ref == null ? null : ref.get();
+            if (buffer == null) {
+                buffer = new BatchBuffer(batchSize, intervalNanos, sink);
+                buffers.put(method, new WeakReference<>(buffer));
+            }
+            return buffer;
+        }
+    }
+
+    /**
+     * 添加一条调用记录
+     */
+    public void add(Invocation invocation) {
+        while (!offer(invocation)) {
+            // 缓冲区已满，由调用线程处理
+            drain();
+            Thread.yield();
+        }
+        // 先写入记录再读取pending，与drain中先写pending再读取tail配合，保证新记录不会被遗漏
+        if (!pending) {
+            synchronized (Holder.PENDING) {
+                if (!pending) {
+                    pending = true;
+                    Holder.PENDING.add(this);
+                }
+            }
+        }
+        if (tail.get() - head >= batchSize && drainScheduled.compareAndSet(false, true)) {
+            Holder.SCHEDULER.execute(() -> {
+                drainScheduled.set(false);
+                drain();
+            });
+        }
+    }
+
+    /**
+     * 处理缓冲区中的所有记录，如果其它线程正在处理则直接返回
+     */
+    public void drain() {
+        // 释放draining之前其它线程的处理请求可能被忽略，所以释放后还要检查是否积累了一整批记录
+        do {
+            if (!draining.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                while (true) {
+                    List<Invocation> batch = new ArrayList<>(batchSize);
+                    Invocation invocation;
+                    while (batch.size() < batchSize && (invocation = poll()) != null) {
+                        batch.add(invocation);
+                    }
+                    if (batch.isEmpty()) {
+                        break;
+                    }
+                    deliver(batch);
+                    if (batch.size() < batchSize) {
+                        break;
+                    }
+                }
+                release();
+            } finally {
+                draining.set(false);
+            }
+        } while (tail.get() - head >= batchSize);
+    }
+
+    /**
+     * 缓冲区已经清空时取消强引用，只在持有draining时调用
+     */
+    private void release() {
+        if (tail.get() != head) {
+            return;
+        }
+        synchronized (Holder.PENDING) {
+            pending = false;
+            if (tail.get() != head) {
+                pending = true;
+            } else {
+                Holder.PENDING.remove(this);
+            }
+        }
+    }
+
+    private void deliver(List<Invocation> batch) {
+        try {
+            sink.accept(batch);
+        } catch (Throwable t) {
+            Thread thread = Thread.currentThread();
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, t);
+        }
+    }
+
+    /**
+     * 写入一条记录，缓冲区已满时返回false
+     * 每个槽位的序号等于下一次可以写入的位置，写入后变为位置加1，表示可以读取
+     */
+    private boolean offer(Invocation invocation) {
+        long pos = tail.get();
+        while (true) {
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    slots.set(index, invocation);
+                    sequences.set(index, pos + 1);
+                    return true;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                return false;
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    /**
+     * 读取一条记录，只在持有draining时调用，没有可读取的记录时返回null
+     */
+    private Invocation poll() {
+        long pos = head;
+        int index = (int) (pos & mask);
+        if (sequences.get(index) != pos + 1) {
+            return null;
+        }
+        Invocation invocation = slots.get(index);
+        slots.set(index, null);
+        sequences.set(index, pos + mask + 1);
+        head = pos + 1;
+        return invocation;
+    }
+}
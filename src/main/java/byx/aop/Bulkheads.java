@@ -0,0 +1,47 @@
+package byx.aop;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Bulkhead并发名额的注册表，按名称全局共享
+ *
+ * @author byx
+ */
+public class Bulkheads {
+    private static final Bulkheads GLOBAL = new Bulkheads();
+
+    private final ConcurrentMap<String, ConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+
+    private Bulkheads() {
+    }
+
+    /**
+     * 全局注册表，@Bulkhead增强的并发名额都记录在这里
+     */
+    public static Bulkheads global() {
+        return GLOBAL;
+    }
+
+    /**
+     * 获取指定名称的并发名额，不存在时创建，已经存在时maxConcurrent被忽略
+     */
+    ConcurrencyLimiter limiter(String name, int maxConcurrent) {
+        return limiters.computeIfAbsent(name, k -> new ConcurrencyLimiter(k, maxConcurrent));
+    }
+
+    /**
+     * 获取指定名称的并发名额，不存在时返回null
+     */
+    public ConcurrencyLimiter get(String name) {
+        return limiters.get(name);
+    }
+
+    /**
+     * 所有名称
+     */
+    public Set<String> names() {
+        return limiters.keySet();
+    }
+}
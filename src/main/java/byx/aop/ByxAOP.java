@@ -1,21 +1,10 @@
 package byx.aop;
 
-import byx.aop.annotation.*;
 import byx.aop.exception.ByxAOPException;
-import byx.aop.exception.IllegalMethodSignatureException;
+import byx.aop.metrics.AopStats;
+import byx.aop.metrics.CacheStats;
+import byx.aop.metrics.Metrics;
 import byx.util.proxy.ProxyType;
-import byx.util.proxy.ProxyUtils;
-import byx.util.proxy.core.MethodInterceptor;
-import byx.util.proxy.core.MethodMatcher;
-
-import java.lang.reflect.Array;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.util.Arrays;
-import java.util.Comparator;
-
-import static byx.util.proxy.core.MethodInterceptor.*;
-import static byx.util.proxy.core.MethodMatcher.*;
 
 /**
  * AOP工具类
@@ -24,215 +13,138 @@ import static byx.util.proxy.core.MethodMatcher.*;
  */
 public class ByxAOP {
     /**
-     * 存放一个方法拦截器的定义
+     * 获取AOP代理对象
+     * @param target 目标对象
+     * @param advices 拦截器对象
+     * @param <T> 返回类型
+     * @return 已增强的对象
      */
-    private static class MethodInterceptorDefinition {
-        private final Object advice;
-        private final Method method;
-        private final int order;
-
-        private MethodInterceptorDefinition(Object advice, Method method) {
-            this.advice = advice;
-            this.method = method;
-            if (method.isAnnotationPresent(Order.class)) {
-                this.order = method.getAnnotation(Order.class).value();
-            } else {
-                this.order = 1;
-            }
-        }
-
-        public int getOrder() {
-            return order;
-        }
-
-        public MethodInterceptor build() {
-            return getMethodInterceptor().when(getMethodMatcher());
-        }
-
-        /**
-         * 解析拦截类型注解，生成方法拦截器
-         */
-        private MethodInterceptor getMethodInterceptor() {
-            if (method.isAnnotationPresent(Before.class)) {
-                return processBefore();
-            } else if (method.isAnnotationPresent(After.class)) {
-                return processAfter();
-            } else if (method.isAnnotationPresent(Around.class)) {
-                return processAround();
-            } else if (method.isAnnotationPresent(Replace.class)) {
-                return processReplace();
-            } else if (method.isAnnotationPresent(AfterThrowing.class)) {
-                return processAfterThrowing();
-            } else {
-                return invokeTargetMethod();
-            }
-        }
-
-        /**
-         * 解析Filter注解，生成方法匹配器
-         */
-        private MethodMatcher getMethodMatcher() {
-            MethodMatcher matcher = all();
-
-            if (method.isAnnotationPresent(Filter.class)) {
-                Filter filter = method.getAnnotation(Filter.class);
-
-                if (!"".equals(filter.name())) {
-                    matcher = matcher.andName(filter.name());
-                } else if (!"".equals(filter.pattern())) {
-                    matcher = matcher.andPattern(filter.pattern());
-                }
-
-                if (filter.returnType() != Filter.Dummy.class) {
-                    matcher = matcher.andReturnType(filter.returnType());
-                }
-                if (filter.parameterTypes().length > 0) {
-                    matcher = matcher.andParameterTypes(filter.parameterTypes());
-                }
-            }
+    public static <T> T getAopProxy(T target, Object... advices) {
+        return getAopProxy(target, ProxyType.AUTO, advices);
+    }
 
-            return matcher;
-        }
+    public static <T> T getAopProxy(T target, ProxyType type, Object... advices) {
+        return getAopProxy(target, type, WeaveMode.CHAIN, advices);
+    }
 
-        /**
-         * 调用增强对象的方法
-         * 增强对象的方法不允许抛出受检异常
-         * 如果增强对象的方法抛出RuntimeException，则直接向外抛出
-         */
-        private Object callAdviceMethod(Object[] params) {
-            try {
-                method.setAccessible(true);
-                return method.invoke(advice, params);
-            } catch (IllegalAccessException e) {
-                throw new ByxAOPException("Cannot invoke method: " + method, e);
-            } catch (InvocationTargetException e) {
-                Throwable targetException = e.getTargetException();
-                if (targetException instanceof RuntimeException) {
-                    throw (RuntimeException) targetException;
-                } else {
-                    throw new ByxAOPException("Enhanced methods cannot throw checked exceptions: " + method);
-                }
-            }
-        }
+    /**
+     * 获取AOP代理对象
+     * @param target 目标对象
+     * @param type 代理类型
+     * @param mode 织入方式
+     * @param advices 拦截器对象
+     * @param <T> 返回类型
+     * @return 已增强的对象
+     */
+    public static <T> T getAopProxy(T target, ProxyType type, WeaveMode mode, Object... advices) {
+        return getAopProxy(target, new AopOptions().proxyType(type).weaveMode(mode), advices);
+    }
 
-        /**
-         * 解析Before注解
-         */
-        private MethodInterceptor processBefore() {
-            if (method.getParameterCount() > 0) {
-                if (method.getReturnType().isArray()) {
-                    return interceptParameters(params -> {
-                        // 避免基本类型数组转换时的坑
-                        // 一个基本类型的数组无法强制转换成Object[]
-                        // 所以只能把返回的数组中每个元素单独拿出来
-                        // 然后依次放入一个新的Object[]中
-                        Object ret = callAdviceMethod(params);
-                        int len = Array.getLength(ret);
-                        Object[] arr = new Object[len];
-                        for (int i = 0; i < len; ++i) {
-                            arr[i] = Array.get(ret, i);
-                        }
-                        return arr;
-                    });
-                } else if(method.getReturnType() == void.class) {
-                    return interceptParameters(params -> {
-                        callAdviceMethod(params);
-                        return params;
-                    });
-                } else {
-                    throw new IllegalMethodSignatureException(method, Before.class);
-                }
-            } else {
-                return interceptParameters(params -> {
-                    callAdviceMethod(new Object[]{});
-                    return params;
-                });
-            }
-        }
+    /**
+     * 获取AOP代理对象
+     * @param target 目标对象
+     * @param options 选项
+     * @param advices 拦截器对象
+     * @param <T> 返回类型
+     * @return 已增强的对象
+     */
+    public static <T> T getAopProxy(T target, AopOptions options, Object... advices) {
+        return new AopProxyFactory<T>(target.getClass(), options, advices).wrap(target);
+    }
 
-        /**
-         * 解析After注解
-         */
-        private MethodInterceptor processAfter() {
-            if (method.getParameterCount() == 0) {
-                return interceptReturnValue(returnValue -> {
-                    callAdviceMethod(new Object[]{});
-                    return returnValue;
-                });
-            } else if (method.getParameterCount() == 1) {
-                if (method.getReturnType() == void.class) {
-                    return interceptReturnValue(returnValue -> {
-                        callAdviceMethod(new Object[]{returnValue});
-                        return returnValue;
-                    });
-                } else {
-                    return interceptReturnValue(returnValue -> callAdviceMethod(new Object[]{returnValue}));
-                }
-            } else {
-                throw new IllegalMethodSignatureException(method, After.class);
-            }
-        }
+    /**
+     * 创建可重复使用的AOP代理工厂
+     * @param targetType 目标对象类型
+     * @param advices 拦截器对象
+     * @param <T> 目标对象类型
+     * @return AOP代理工厂
+     */
+    public static <T> AopProxyFactory<T> factory(Class<T> targetType, Object... advices) {
+        return factory(targetType, ProxyType.AUTO, advices);
+    }
 
-        /**
-         * 解析Around注解
-         */
-        private MethodInterceptor processAround() {
-            return targetMethod -> callAdviceMethod(new Object[]{targetMethod});
-        }
+    /**
+     * 创建可重复使用的AOP代理工厂
+     * @param targetType 目标对象类型
+     * @param type 代理类型
+     * @param advices 拦截器对象
+     * @param <T> 目标对象类型
+     * @return AOP代理工厂
+     */
+    public static <T> AopProxyFactory<T> factory(Class<T> targetType, ProxyType type, Object... advices) {
+        return factory(targetType, type, WeaveMode.CHAIN, advices);
+    }
 
-        /**
-         * 解析Replace注解
-         */
-        private MethodInterceptor processReplace() {
-            return targetMethod -> callAdviceMethod(targetMethod.getParams());
-        }
+    /**
+     * 创建可重复使用的AOP代理工厂
+     * @param targetType 目标对象类型
+     * @param type 代理类型
+     * @param mode 织入方式
+     * @param advices 拦截器对象
+     * @param <T> 目标对象类型
+     * @return AOP代理工厂
+     */
+    public static <T> AopProxyFactory<T> factory(Class<T> targetType, ProxyType type, WeaveMode mode, Object... advices) {
+        return factory(targetType, new AopOptions().proxyType(type).weaveMode(mode), advices);
+    }
 
-        private MethodInterceptor processAfterThrowing() {
-            return interceptException(t -> callAdviceMethod(new Object[]{t}));
-        }
+    /**
+     * 创建可重复使用的AOP代理工厂
+     * @param targetType 目标对象类型
+     * @param options 选项
+     * @param advices 拦截器对象
+     * @param <T> 目标对象类型
+     * @return AOP代理工厂
+     */
+    public static <T> AopProxyFactory<T> factory(Class<T> targetType, AopOptions options, Object... advices) {
+        AopProxyFactory<T> factory = new AopProxyFactory<>(targetType, options, advices);
+        factory.prepare();
+        return factory;
     }
 
-    private static boolean isInterceptMethod(Method m) {
-        return m.isAnnotationPresent(Before.class)
-                || m.isAnnotationPresent(After.class)
-                || m.isAnnotationPresent(Around.class)
-                || m.isAnnotationPresent(Replace.class)
-                || m.isAnnotationPresent(AfterThrowing.class);
+    /**
+     * 获取@Timed增强记录的耗时统计
+     * @return 耗时统计注册表
+     */
+    public static Metrics metrics() {
+        return Metrics.global();
     }
 
     /**
-     * 获取AOP代理对象
-     * @param target 目标对象
-     * @param advices 拦截器对象
-     * @param <T> 返回类型
-     * @return 已增强的对象
+     * 获取@Bulkhead增强的并发名额，可以在运行时调整并发上限
+     * @return 并发名额注册表
      */
-    public static <T> T getAopProxy(T target, Object... advices) {
-        return getAopProxy(target, ProxyType.AUTO, advices);
+    public static Bulkheads bulkheads() {
+        return Bulkheads.global();
     }
 
-    public static <T> T getAopProxy(T target, ProxyType type, Object... advices) {
-        // 1. 获取增强类（advice）中的所有方法
-        // 2. 解析方法上的注解，并封装成MethodInterceptorDefinition
-        // 3. 根据order数值排序
-        // 4. 把MethodInterceptorDefinition转换成MethodInterceptor
-        // 5. 用then把所有方法拦截器连接起来，形成拦截器链
-        MethodInterceptor interceptor = Arrays.stream(advices)
-                .flatMap(advice -> Arrays
-                        .stream(advice.getClass().getMethods())
-                        .filter(ByxAOP::isInterceptMethod)
-                        .map(m -> new MethodInterceptorDefinition(advice, m))
-                        .sorted(Comparator.comparingInt(MethodInterceptorDefinition::getOrder))
-                        .map(MethodInterceptorDefinition::build))
-                .reduce(invokeTargetMethod(), MethodInterceptor::then);
+    /**
+     * 获取@CircuitBreaker增强的熔断器，可以查看状态和失败率，或者手动重置
+     * @return 熔断器注册表
+     */
+    public static CircuitBreakers circuitBreakers() {
+        return CircuitBreakers.global();
+    }
 
-        switch (type) {
-            case JDK:
-                return ProxyUtils.proxy(target, interceptor, ProxyType.JDK);
-            case BYTE_BUDDY:
-                return ProxyUtils.proxy(target, interceptor, ProxyType.BYTE_BUDDY);
-            default:
-                return ProxyUtils.proxy(target, interceptor);
+    /**
+     * 获取代理对象的调用统计，同一个工厂创建的代理对象共用一份统计
+     * @param proxy 开启了统计（AopOptions.stats(true)）的代理对象
+     * @return 调用统计
+     */
+    public static AopStats stats(Object proxy) {
+        AopProxyFactory<?> factory = ProxyRegistry.get(proxy);
+        if (factory == null) {
+            throw new ByxAOPException("Stats not enabled for proxy: " + proxy.getClass().getName());
         }
+        return factory.getStats();
+    }
+
+    /**
+     * 获取拦截器匹配结果缓存的命中统计
+     * 同一个目标类型和同一组增强类创建的代理对象共用匹配结果，每个目标方法只匹配一次
+     * @return 命中统计
+     */
+    public static CacheStats proxyCacheStats() {
+        return DispatchPlan.stats();
     }
 }
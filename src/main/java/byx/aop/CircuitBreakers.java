@@ -0,0 +1,48 @@
+package byx.aop;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * CircuitBreaker熔断器的注册表，按名称全局共享
+ *
+ * @author byx
+ */
+public class CircuitBreakers {
+    private static final CircuitBreakers GLOBAL = new CircuitBreakers();
+
+    private final ConcurrentMap<String, CircuitState> states = new ConcurrentHashMap<>();
+
+    private CircuitBreakers() {
+    }
+
+    /**
+     * 全局注册表，@CircuitBreaker增强的熔断器都记录在这里
+     */
+    public static CircuitBreakers global() {
+        return GLOBAL;
+    }
+
+    /**
+     * 获取指定名称的熔断器，不存在时创建，已经存在时factory被忽略
+     */
+    CircuitState state(String name, Function<String, CircuitState> factory) {
+        return states.computeIfAbsent(name, factory);
+    }
+
+    /**
+     * 获取指定名称的熔断器，不存在时返回null
+     */
+    public CircuitState get(String name) {
+        return states.get(name);
+    }
+
+    /**
+     * 所有名称
+     */
+    public Set<String> names() {
+        return states.keySet();
+    }
+}
@@ -0,0 +1,193 @@
+package byx.aop;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 一个CircuitBreaker的状态和滑动窗口
+ * 滑动窗口是一个环形缓冲区，每个位置记录一次调用是否失败，调用方通过原子计数器领取位置，不加锁
+ * 窗口足够大时分成多段，每段有自己的计数器，调用线程按线程id选择一段，避免所有核心争用同一个计数器
+ * 成功的调用只需要一次原子自增和一次volatile读取，只有覆盖了失败记录时才需要额外的写入
+ *
+ * @author byx
+ */
+public class CircuitState {
+    /**
+     * 熔断器状态
+     */
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private static final int CLOSED = 0;
+    private static final int OPEN = 1;
+    private static final int HALF_OPEN = 2;
+    /**
+     * 正在打开：已经决定打开但openedAt还没有写入，对外表现为OPEN
+     */
+    private static final int OPENING = 3;
+
+    /**
+     * acquire的返回值：拒绝调用、普通调用、试探调用
+     */
+    static final int REJECTED = 0;
+    static final int PERMITTED = 1;
+    static final int TRIAL = 2;
+
+    /**
+     * 每段至少包含的位置数，较小的窗口不分段，保持精确的滑动窗口语义
+     */
+    private static final int MIN_STRIPE_SIZE = 32;
+    /**
+     * 相邻两段的计数器在AtomicLongArray中的间隔，避免位于同一个缓存行
+     */
+    private static final int PADDING = 16;
+
+    private final String name;
+    private final int mask;
+    private final int stripeMask;
+    private final int stripeShift;
+    private final int minCalls;
+    private final double failureRate;
+    private final long openNanos;
+    private final AtomicIntegerArray window;
+    private final AtomicLongArray cursors;
+    private final AtomicInteger failures = new AtomicInteger();
+    private final AtomicInteger state = new AtomicInteger(CLOSED);
+    private volatile long openedAt;
+
+    CircuitState(String name, int windowSize, int minCalls, double failureRate, long openNanos) {
+        int size = Integer.highestOneBit(Math.max(windowSize - 1, 1)) << 1;
+        this.name = name;
+        this.mask = size - 1;
+        this.minCalls = Math.min(minCalls, size);
+        this.failureRate = failureRate;
+        this.openNanos = openNanos;
+        this.window = new AtomicIntegerArray(size);
+
+        // 每段的位置数不少于minCalls，单个线程的调用也能达到计算失败率所需的调用次数
+        int cpus = Integer.highestOneBit(Runtime.getRuntime().availableProcessors());
+        int stripes = Math.max(Math.min(cpus, Integer.highestOneBit(size / Math.max(this.minCalls, MIN_STRIPE_SIZE))), 1);
+        this.stripeMask = size / stripes - 1;
+        this.stripeShift = Integer.numberOfTrailingZeros(size / stripes);
+        this.cursors = new AtomicLongArray(stripes * PADDING);
+    }
+
+    /**
+     * 当前线程使用的段
+     */
+    private int stripe() {
+        int stripes = cursors.length() / PADDING;
+        return stripes == 1 ? 0 : (int) (Thread.currentThread().getId() * 0x9E3779B9L >>> 16) & (stripes - 1);
+    }
+
+    /**
+     * 窗口中记录的调用次数，每段最多记录stripeMask + 1次
+     */
+    private long calls() {
+        long calls = 0;
+        for (int i = 0; i < cursors.length(); i += PADDING) {
+            calls += Math.min(cursors.get(i), stripeMask + 1);
+        }
+        return calls;
+    }
+
+    /**
+     * 判断是否允许调用
+     * 熔断器打开时间超过openDuration后，只有一个调用者能把状态切换成HALF_OPEN并执行试探调用
+     * @return REJECTED、PERMITTED或TRIAL
+     */
+    int acquire() {
+        int s = state.get();
+        if (s == CLOSED) {
+            return PERMITTED;
+        }
+        if (s == OPEN && System.nanoTime() - openedAt >= openNanos && state.compareAndSet(OPEN, HALF_OPEN)) {
+            return TRIAL;
+        }
+        return REJECTED;
+    }
+
+    /**
+     * 记录一次成功的调用，试探调用成功时关闭熔断器
+     * @param permit acquire的返回值
+     */
+    void onSuccess(int permit) {
+        if (permit == TRIAL) {
+            reset();
+            return;
+        }
+        int s = stripe();
+        int i = s << stripeShift | (int) cursors.getAndIncrement(s * PADDING) & stripeMask;
+        if (window.get(i) != 0 && window.getAndSet(i, 0) != 0) {
+            failures.decrementAndGet();
+        }
+    }
+
+    /**
+     * 记录一次失败的调用，失败率达到阈值或试探调用失败时打开熔断器
+     * @param permit acquire的返回值
+     */
+    void onFailure(int permit) {
+        if (permit == TRIAL) {
+            open(HALF_OPEN);
+            return;
+        }
+        int s = stripe();
+        int i = s << stripeShift | (int) cursors.getAndIncrement(s * PADDING) & stripeMask;
+        int f = window.getAndSet(i, 1) == 0 ? failures.incrementAndGet() : failures.get();
+        long calls = calls();
+        if (calls >= minCalls && f >= failureRate * calls) {
+            open(CLOSED);
+        }
+    }
+
+    /**
+     * 只有切换状态成功的调用者写入openedAt，已经打开后才完成的失败调用不会推迟HALF_OPEN的时间
+     * 写入openedAt之前状态为OPENING，acquire不会读到上一次打开的时间
+     */
+    private void open(int expected) {
+        if (state.compareAndSet(expected, OPENING)) {
+            openedAt = System.nanoTime();
+            // reset可能已经关闭了熔断器，此时不再打开
+            state.compareAndSet(OPENING, OPEN);
+        }
+    }
+
+    /**
+     * 关闭熔断器并清空滑动窗口
+     */
+    public void reset() {
+        for (int i = 0; i <= mask; ++i) {
+            window.set(i, 0);
+        }
+        failures.set(0);
+        for (int i = 0; i < cursors.length(); i += PADDING) {
+            cursors.set(i, 0);
+        }
+        state.set(CLOSED);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public State getState() {
+        int s = state.get();
+        return s == OPENING ? State.OPEN : State.values()[s];
+    }
+
+    /**
+     * 滑动窗口中的失败率
+     */
+    public double getFailureRate() {
+        long calls = calls();
+        return calls == 0 ? 0 : (double) failures.get() / calls;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s state=%s failureRate=%.4f", name, getState(), getFailureRate());
+    }
+}
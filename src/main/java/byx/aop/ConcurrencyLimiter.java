@@ -0,0 +1,135 @@
+package byx.aop;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 一个Bulkhead的并发名额
+ * 名额通过CAS计数，名额充足时不加锁；没有空闲名额且允许等待时，调用线程挂起，释放名额时唤醒等待的线程
+ * 被唤醒的线程离开等待队列时（无论是否获取到名额），如果仍有空闲名额则继续唤醒下一个线程，
+ * 因此同时释放多个名额或者队首线程已经超时时，唤醒不会丢失
+ *
+ * @author byx
+ */
+public class ConcurrencyLimiter {
+    private final String name;
+    private volatile int maxConcurrent;
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+    private final Queue<Thread> waiters = new ConcurrentLinkedQueue<>();
+
+    ConcurrencyLimiter(String name, int maxConcurrent) {
+        this.name = name;
+        this.maxConcurrent = maxConcurrent;
+    }
+
+    /**
+     * 尝试获取一个名额
+     * @param maxWaitNanos 没有空闲名额时的最长等待时间，0表示不等待
+     * @return 是否获取成功，获取失败时计入拒绝次数
+     */
+    boolean acquire(long maxWaitNanos) {
+        if (tryAcquire()) {
+            return true;
+        }
+        if (maxWaitNanos <= 0) {
+            rejected.increment();
+            return false;
+        }
+
+        // 先加入等待队列再重试，release在减少计数后唤醒队首线程，不会错过唤醒
+        Thread current = Thread.currentThread();
+        long deadline = System.nanoTime() + maxWaitNanos;
+        waiters.add(current);
+        try {
+            while (true) {
+                if (tryAcquire()) {
+                    return true;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0 || current.isInterrupted()) {
+                    rejected.increment();
+                    return false;
+                }
+                LockSupport.parkNanos(this, remaining);
+            }
+        } finally {
+            waiters.remove(current);
+            // 自己可能消耗了本应唤醒其他线程的unpark，把唤醒传给下一个线程
+            signalNext();
+        }
+    }
+
+    private boolean tryAcquire() {
+        while (true) {
+            int n = active.get();
+            if (n >= maxConcurrent) {
+                return false;
+            }
+            if (active.compareAndSet(n, n + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 释放一个名额
+     */
+    void release() {
+        active.decrementAndGet();
+        signalNext();
+    }
+
+    /**
+     * 有空闲名额时唤醒队首的等待线程
+     */
+    private void signalNext() {
+        if (active.get() < maxConcurrent) {
+            Thread waiter = waiters.peek();
+            if (waiter != null) {
+                LockSupport.unpark(waiter);
+            }
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    /**
+     * 调整最大并发调用数，立即生效，已经开始的调用不受影响
+     */
+    public void setMaxConcurrent(int maxConcurrent) {
+        if (maxConcurrent < 0) {
+            throw new IllegalArgumentException("maxConcurrent: " + maxConcurrent);
+        }
+        this.maxConcurrent = maxConcurrent;
+        waiters.forEach(LockSupport::unpark);
+    }
+
+    /**
+     * 正在执行的调用数
+     */
+    public int getActive() {
+        return active.get();
+    }
+
+    /**
+     * 被拒绝的调用数
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s active=%d maxConcurrent=%d rejected=%d", name, getActive(), maxConcurrent, getRejected());
+    }
+}
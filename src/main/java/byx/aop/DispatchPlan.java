@@ -0,0 +1,181 @@
+package byx.aop;
+
+import byx.aop.metrics.CacheStats;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 目标类型与一组增强方法之间的匹配结果，与具体的目标对象和增强对象无关
+ * 按(目标类型, 增强方法列表)缓存，同一个类的所有代理对象共用，每个目标方法只匹配一次
+ * 缓存保存在目标类型的ClassValue中，不会阻止目标类型所在的类加载器被卸载
+ * 缓存只通过弱引用引用增强方法，匹配结果只记录下标，也不会阻止增强类所在的类加载器被卸载
+ *
+ * @author byx
+ */
+class DispatchPlan {
+    private static final ClassValue<ConcurrentMap<Key, DispatchPlan>> CACHE =
+            new ClassValue<ConcurrentMap<Key, DispatchPlan>>() {
+                @Override
+                protected ConcurrentMap<Key, DispatchPlan> computeValue(Class<?> type) {
+                    return new ConcurrentHashMap<>();
+                }
+            };
+
+    /**
+     * 增强方法被回收后，对应的弱引用进入该队列，之后从缓存中删除对应的匹配结果
+     */
+    private static final ReferenceQueue<AdviceMethod> QUEUE = new ReferenceQueue<>();
+
+    /**
+     * 缓存键，按对象标识比较增强方法列表
+     */
+    private static final class Key {
+        private final ConcurrentMap<Key, DispatchPlan> plans;
+        private final AdviceRef[] refs;
+        private final int hash;
+
+        private Key(ConcurrentMap<Key, DispatchPlan> plans, List<AdviceMethod> adviceMethods) {
+            this.plans = plans;
+            this.refs = new AdviceRef[adviceMethods.size()];
+            int h = 1;
+            for (int i = 0; i < refs.length; ++i) {
+                refs[i] = new AdviceRef(adviceMethods.get(i), this);
+                h = 31 * h + System.identityHashCode(adviceMethods.get(i));
+            }
+            this.hash = h;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key) || ((Key) o).refs.length != refs.length) {
+                return false;
+            }
+            for (int i = 0; i < refs.length; ++i) {
+                AdviceMethod m = refs[i].get();
+                if (m == null || m != ((Key) o).refs[i].get()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class AdviceRef extends WeakReference<AdviceMethod> {
+        private final Key key;
+
+        private AdviceRef(AdviceMethod adviceMethod, Key key) {
+            super(adviceMethod, QUEUE);
+            this.key = key;
+        }
+    }
+
+    private static final LongAdder HITS = new LongAdder();
+    private static final LongAdder MISSES = new LongAdder();
+
+    private final Class<?> targetType;
+    private final Map<String, int[]> nameIndex = new HashMap<>();
+    private final int[] unnamed;
+    private final ConcurrentMap<MethodKey, int[]> matches = new ConcurrentHashMap<>();
+
+    private DispatchPlan(Class<?> targetType, List<AdviceMethod> adviceMethods) {
+        this.targetType = targetType;
+
+        // 按Filter指定的方法名建立索引，未指定方法名的增强方法需要逐个匹配
+        Map<String, List<Integer>> named = new HashMap<>();
+        List<Integer> others = new ArrayList<>();
+        for (int i = 0; i < adviceMethods.size(); ++i) {
+            String name = adviceMethods.get(i).getName();
+            if (name != null) {
+                named.computeIfAbsent(name, k -> new ArrayList<>()).add(i);
+            } else {
+                others.add(i);
+            }
+        }
+        named.forEach((name, indices) -> nameIndex.put(name, toArray(indices)));
+        this.unnamed = toArray(others);
+    }
+
+    /**
+     * 获取目标类型与增强方法列表的匹配结果，已经存在时直接返回缓存的结果
+     * @param targetType 目标类型
+     * @param adviceMethods 排好序的增强方法，AdviceMethod按增强类缓存，因此可以按对象标识比较
+     */
+    static DispatchPlan of(Class<?> targetType, List<AdviceMethod> adviceMethods) {
+        expungeStaleEntries();
+        ConcurrentMap<Key, DispatchPlan> plans = CACHE.get(targetType);
+        Key key = new Key(plans, adviceMethods);
+        DispatchPlan plan = plans.get(key);
+        if (plan != null) {
+            HITS.increment();
+            return plan;
+        }
+        MISSES.increment();
+        return plans.computeIfAbsent(key, k -> new DispatchPlan(targetType, adviceMethods));
+    }
+
+    /**
+     * 删除增强方法已被回收的匹配结果
+     */
+    private static void expungeStaleEntries() {
+        for (Reference<? extends AdviceMethod> ref; (ref = QUEUE.poll()) != null; ) {
+            Key key = ((AdviceRef) ref).key;
+            key.plans.remove(key);
+        }
+    }
+
+    /**
+     * 缓存的命中统计
+     */
+    static CacheStats stats() {
+        return new CacheStats(HITS.sum(), MISSES.sum());
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        return list.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * 获取匹配目标方法的增强方法下标，按增强方法列表中的顺序排列
+     * @param adviceMethods 创建时传入的增强方法列表，匹配结果中不保存增强方法
+     */
+    int[] match(String name, Class<?> returnType, Class<?>[] parameterTypes, List<AdviceMethod> adviceMethods) {
+        return matches.computeIfAbsent(new MethodKey(targetType, name, returnType, parameterTypes),
+                k -> resolve(name, returnType, parameterTypes, adviceMethods));
+    }
+
+    private int[] resolve(String name, Class<?> returnType, Class<?>[] parameterTypes, List<AdviceMethod> adviceMethods) {
+        // 合并两组候选增强方法，保持原有顺序
+        int[] candidates = nameIndex.getOrDefault(name, new int[0]);
+        List<Integer> matched = new ArrayList<>();
+        int i = 0, j = 0;
+        while (i < candidates.length || j < unnamed.length) {
+            int index;
+            if (j == unnamed.length || (i < candidates.length && candidates[i] < unnamed[j])) {
+                index = candidates[i++];
+            } else {
+                index = unnamed[j++];
+            }
+            if (adviceMethods.get(index).matches(name, returnType, parameterTypes)) {
+                matched.add(index);
+            }
+        }
+        return toArray(matched);
+    }
+}
@@ -0,0 +1,28 @@
+package byx.aop;
+
+import java.util.concurrent.CompletionException;
+
+/**
+ * 异常相关的工具方法
+ *
+ * @author byx
+ */
+final class ExceptionUtils {
+    private ExceptionUtils() {
+    }
+
+    /**
+     * 原样抛出异常，包括受检异常
+     */
+    @SuppressWarnings("unchecked")
+    static <E extends Throwable> E sneakyThrow(Throwable t) throws E {
+        throw (E) t;
+    }
+
+    /**
+     * 取出CompletionStage异步失败时包装在CompletionException中的原始异常
+     */
+    static Throwable unwrap(Throwable t) {
+        return t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+    }
+}
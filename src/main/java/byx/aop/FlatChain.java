@@ -0,0 +1,283 @@
+package byx.aop;
+
+import byx.aop.metrics.AdviceStats;
+import byx.aop.metrics.MethodStats;
+import byx.util.proxy.core.MethodInterceptor;
+import byx.util.proxy.core.MethodSignature;
+import byx.util.proxy.core.TargetMethod;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * 用数组保存的拦截器链
+ * 不像MethodInterceptor.then那样把拦截器一层层嵌套起来，而是用下标从外到内遍历拦截器：
+ * 向内时依次处理参数，调用目标方法后再从内到外依次处理返回值和异常
+ * 只有需要TargetMethod对象的拦截器（如Around）才会在该层递归，调用栈深度与这类拦截器的数量成正比
+ * 开启调用统计时使用runInstrumented记录每一层和目标方法的耗时，未开启时没有任何额外开销
+ *
+ * @author byx
+ */
+class FlatChain implements MethodInterceptor {
+    private static final int BEFORE = 0;
+    private static final int AFTER = 1;
+    private static final int AFTER_THROWING = 2;
+    private static final int AROUND = 3;
+
+    /**
+     * 拦截器链中的一层
+     */
+    static class Layer {
+        private final int kind;
+        private final UnaryOperator<Object[]> before;
+        private final UnaryOperator<Object> after;
+        private final Function<Throwable, Object> afterThrowing;
+        private final MethodInterceptor interceptor;
+
+        private Layer(int kind, UnaryOperator<Object[]> before, UnaryOperator<Object> after,
+                      Function<Throwable, Object> afterThrowing, MethodInterceptor interceptor) {
+            this.kind = kind;
+            this.before = before;
+            this.after = after;
+            this.afterThrowing = afterThrowing;
+            this.interceptor = interceptor;
+        }
+
+        /**
+         * 在调用目标方法前处理参数
+         */
+        static Layer before(UnaryOperator<Object[]> before) {
+            return new Layer(BEFORE, before, null, null, null);
+        }
+
+        /**
+         * 在目标方法正常返回后处理返回值
+         */
+        static Layer after(UnaryOperator<Object> after) {
+            return new Layer(AFTER, null, after, null, null);
+        }
+
+        /**
+         * 在目标方法抛出异常后处理异常，返回值作为目标方法的返回值
+         */
+        static Layer afterThrowing(Function<Throwable, Object> afterThrowing) {
+            return new Layer(AFTER_THROWING, null, null, afterThrowing, null);
+        }
+
+        /**
+         * 需要TargetMethod对象的拦截器
+         */
+        static Layer around(MethodInterceptor interceptor) {
+            return new Layer(AROUND, null, null, null, interceptor);
+        }
+    }
+
+    /**
+     * 从某一层开始的剩余拦截器链，作为AROUND层拦截器的TargetMethod
+     */
+    private class Cursor implements TargetMethod {
+        private final TargetMethod target;
+        private final int top;
+        private final Object[] params;
+        private long innerNanos = 0;
+
+        private Cursor(TargetMethod target, int top, Object[] params) {
+            this.target = target;
+            this.top = top;
+            this.params = params;
+        }
+
+        @Override
+        public MethodSignature getSignature() {
+            return target.getSignature();
+        }
+
+        @Override
+        public Object[] getParams() {
+            return params;
+        }
+
+        @Override
+        public Object invoke(Object... params) {
+            if (stats == null) {
+                return run(target, top, params);
+            }
+            // 记录内层的耗时，从AROUND层的耗时中扣除
+            long start = System.nanoTime();
+            try {
+                return runInstrumented(target, top, params);
+            } finally {
+                innerNanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public Object invokeWithOriginalParams() {
+            return invoke(params);
+        }
+    }
+
+    private final Layer[] layers;
+    private final MethodStats stats;
+    private final AdviceStats[] adviceStats;
+
+    /**
+     * @param layers 拦截器链，排在后面的位于外层
+     */
+    FlatChain(List<Layer> layers) {
+        this(layers, null, null);
+    }
+
+    /**
+     * @param layers 拦截器链，排在后面的位于外层
+     * @param stats 方法的调用统计，为null时不统计
+     * @param adviceStats 每一层的调用统计，与layers一一对应
+     */
+    FlatChain(List<Layer> layers, MethodStats stats, List<AdviceStats> adviceStats) {
+        this.layers = layers.toArray(new Layer[0]);
+        this.stats = stats;
+        this.adviceStats = adviceStats == null ? null : adviceStats.toArray(new AdviceStats[0]);
+    }
+
+    @Override
+    public Object intercept(TargetMethod targetMethod) {
+        if (stats == null) {
+            return run(targetMethod, layers.length - 1, targetMethod.getParams());
+        }
+
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            Object result = runInstrumented(targetMethod, layers.length - 1, targetMethod.getParams());
+            failed = false;
+            return result;
+        } finally {
+            stats.record(System.nanoTime() - start, failed);
+        }
+    }
+
+    /**
+     * 执行第top层及其内层的拦截器
+     */
+    private Object run(TargetMethod target, int top, Object[] params) {
+        Object result = null;
+        Throwable error = null;
+
+        // 从外到内处理参数，直到遇到AROUND层或者到达目标方法
+        int i = top;
+        try {
+            for (; i >= 0; --i) {
+                Layer layer = layers[i];
+                if (layer.kind == BEFORE) {
+                    params = layer.before.apply(params);
+                } else if (layer.kind == AROUND) {
+                    break;
+                }
+            }
+            result = i < 0
+                    ? target.invoke(params)
+                    : layers[i].interceptor.intercept(new Cursor(target, i - 1, params));
+        } catch (Throwable t) {
+            error = t;
+        }
+
+        // 从内到外处理返回值和异常
+        for (int j = i + 1; j <= top; ++j) {
+            Layer layer = layers[j];
+            try {
+                if (error == null) {
+                    if (layer.kind == AFTER) {
+                        result = layer.after.apply(result);
+                    }
+                } else if (layer.kind == AFTER_THROWING) {
+                    Throwable t = error;
+                    error = null;
+                    result = layer.afterThrowing.apply(t);
+                }
+            } catch (Throwable t) {
+                error = t;
+            }
+        }
+
+        if (error != null) {
+            throw ExceptionUtils.<RuntimeException>sneakyThrow(error);
+        }
+        return result;
+    }
+
+    /**
+     * 与run相同，同时记录每一层和目标方法的耗时
+     */
+    private Object runInstrumented(TargetMethod target, int top, Object[] params) {
+        Object result = null;
+        Throwable error = null;
+
+        int i = top;
+        try {
+            for (; i >= 0; --i) {
+                Layer layer = layers[i];
+                if (layer.kind == BEFORE) {
+                    long start = System.nanoTime();
+                    try {
+                        params = layer.before.apply(params);
+                    } catch (Throwable t) {
+                        adviceStats[i].record(System.nanoTime() - start, true);
+                        throw t;
+                    }
+                    adviceStats[i].record(System.nanoTime() - start, false);
+                } else if (layer.kind == AROUND) {
+                    break;
+                }
+            }
+
+            long start = System.nanoTime();
+            if (i < 0) {
+                try {
+                    result = target.invoke(params);
+                } finally {
+                    stats.recordTarget(System.nanoTime() - start);
+                }
+            } else {
+                Cursor cursor = new Cursor(target, i - 1, params);
+                boolean failed = true;
+                try {
+                    result = layers[i].interceptor.intercept(cursor);
+                    failed = false;
+                } finally {
+                    adviceStats[i].record(System.nanoTime() - start - cursor.innerNanos, failed);
+                }
+            }
+        } catch (Throwable t) {
+            error = t;
+        }
+
+        for (int j = i + 1; j <= top; ++j) {
+            Layer layer = layers[j];
+            if (error == null ? layer.kind != AFTER : layer.kind != AFTER_THROWING) {
+                continue;
+            }
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                if (error == null) {
+                    result = layer.after.apply(result);
+                } else {
+                    Throwable t = error;
+                    error = null;
+                    result = layer.afterThrowing.apply(t);
+                }
+                failed = false;
+            } catch (Throwable t) {
+                error = t;
+            } finally {
+                adviceStats[j].record(System.nanoTime() - start, failed);
+            }
+        }
+
+        if (error != null) {
+            throw ExceptionUtils.<RuntimeException>sneakyThrow(error);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,76 @@
+package byx.aop;
+
+/**
+ * 编译期为增强类生成的调用器，由byx-aop-processor生成，不需要手动实现
+ * 生成的类与增强类位于同一个包中，类名为增强类的二进制类名加上SUFFIX
+ * 存在生成的类时，增强方法通过生成的代码直接调用，不需要setAccessible和反射生成的方法句柄，
+ * 参数不超过MAX_FIXED_ARITY个的增强方法调用时也不需要创建参数数组
+ * 增强方法的注解仍然在运行时读取，并与生成的类核对，不一致时退回到反射方式
+ *
+ * @author byx
+ */
+public interface GeneratedAdvice {
+    /**
+     * 生成类的类名后缀
+     */
+    String SUFFIX = "$$ByxAdvice";
+
+    /**
+     * 有固定参数个数调用方法（invoke0到invoke4）的最大参数个数
+     */
+    int MAX_FIXED_ARITY = 4;
+
+    /**
+     * 增强方法的方法名
+     */
+    String[] getMethodNames();
+
+    /**
+     * 增强方法的参数类型，与getMethodNames一一对应
+     */
+    Class<?>[][] getParameterTypes();
+
+    /**
+     * 调用增强方法
+     * @param advice 增强对象
+     * @param index 增强方法在getMethodNames中的下标
+     * @param args 参数
+     * @return 增强方法的返回值，返回void的方法返回null
+     */
+    Object invoke(Object advice, int index, Object[] args) throws Throwable;
+
+    /**
+     * 调用没有参数的增强方法，生成的类会直接实现该方法
+     */
+    default Object invoke0(Object advice, int index) throws Throwable {
+        return invoke(advice, index, new Object[0]);
+    }
+
+    /**
+     * 调用有1个参数的增强方法，生成的类会直接实现该方法
+     */
+    default Object invoke1(Object advice, int index, Object a0) throws Throwable {
+        return invoke(advice, index, new Object[]{a0});
+    }
+
+    /**
+     * 调用有2个参数的增强方法，生成的类会直接实现该方法
+     */
+    default Object invoke2(Object advice, int index, Object a0, Object a1) throws Throwable {
+        return invoke(advice, index, new Object[]{a0, a1});
+    }
+
+    /**
+     * 调用有3个参数的增强方法，生成的类会直接实现该方法
+     */
+    default Object invoke3(Object advice, int index, Object a0, Object a1, Object a2) throws Throwable {
+        return invoke(advice, index, new Object[]{a0, a1, a2});
+    }
+
+    /**
+     * 调用有4个参数的增强方法，生成的类会直接实现该方法
+     */
+    default Object invoke4(Object advice, int index, Object a0, Object a1, Object a2, Object a3) throws Throwable {
+        return invoke(advice, index, new Object[]{a0, a1, a2, a3});
+    }
+}
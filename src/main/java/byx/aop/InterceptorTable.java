@@ -0,0 +1,248 @@
+package byx.aop;
+
+import byx.aop.exception.ByxAOPException;
+import byx.aop.metrics.AopStats;
+import byx.aop.metrics.MethodStats;
+import byx.util.proxy.core.MethodInterceptor;
+import byx.util.proxy.core.MethodSignature;
+import byx.util.proxy.core.TargetMethod;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+import static java.lang.invoke.MethodType.methodType;
+
+/**
+ * 拦截器分派表
+ * 每个目标方法第一次被调用时解析出作用于它的拦截器链，之后的调用直接查表
+ * 没有任何拦截器的方法直接调用目标方法
+ * 拦截器可以在运行时替换，替换时生成新的分派表
+ * 开启调用统计时，没有被增强的方法也会经过拦截器链以便记录调用次数和耗时
+ *
+ * @author byx
+ */
+class InterceptorTable implements MethodInterceptor {
+    /**
+     * 一个目标方法及其拦截器链，interceptor为null表示该方法没有被增强
+     */
+    private static class Entry {
+        private final Class<?> returnType;
+        private final Class<?>[] parameterTypes;
+        private final MethodInterceptor interceptor;
+
+        private Entry(Class<?> returnType, Class<?>[] parameterTypes, MethodInterceptor interceptor) {
+            this.returnType = returnType;
+            this.parameterTypes = parameterTypes;
+            this.interceptor = interceptor;
+        }
+
+        private boolean matches(Class<?> returnType, Class<?>[] parameterTypes) {
+            return this.returnType == returnType && Arrays.equals(this.parameterTypes, parameterTypes);
+        }
+    }
+
+    /**
+     * 调用目标方法的方法句柄，类型为(TargetMethod, Object[])Object
+     */
+    private static final MethodHandle INVOKE_TARGET_METHOD;
+
+    static {
+        try {
+            INVOKE_TARGET_METHOD = MethodHandles.publicLookup()
+                    .findVirtual(TargetMethod.class, "invoke", methodType(Object.class, Object[].class))
+                    .asFixedArity();
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new ByxAOPException("Cannot initialize method handles", e);
+        }
+    }
+
+    /**
+     * 某一时刻生效的拦截器及其分派表，创建后不再修改拦截器列表
+     * 启用、禁用或替换增强时生成新的快照，调用方每次调用只读取一次volatile字段
+     * 拦截器与目标方法的匹配结果来自按类缓存的DispatchPlan，同一个类的代理对象只匹配一次
+     */
+    private class Snapshot {
+        private final List<MethodInterceptorDefinition> definitions;
+        private final boolean[] enabled;
+        private final List<AdviceMethod> adviceMethods;
+        private final DispatchPlan plan;
+        private final ConcurrentMap<String, Entry[]> entries = new ConcurrentHashMap<>();
+
+        private Snapshot(List<MethodInterceptorDefinition> definitions, Set<MethodInterceptorDefinition> disabled) {
+            this.definitions = definitions;
+            this.enabled = new boolean[definitions.size()];
+            for (int i = 0; i < enabled.length; ++i) {
+                enabled[i] = !disabled.contains(definitions.get(i));
+            }
+            this.adviceMethods = definitions.stream()
+                    .map(MethodInterceptorDefinition::getAdviceMethod)
+                    .collect(Collectors.toList());
+            this.plan = DispatchPlan.of(targetType, adviceMethods);
+        }
+
+        private void prepare() {
+            for (Method m : targetType.getMethods()) {
+                lookup(m.getName(), m.getReturnType(), m.getParameterTypes());
+            }
+        }
+
+        private MethodInterceptor lookup(String name, Class<?> returnType, Class<?>[] parameterTypes) {
+            Entry entry = find(entries.get(name), returnType, parameterTypes);
+            if (entry == null) {
+                Entry[] arr = entries.compute(name, (k, old) -> {
+                    if (find(old, returnType, parameterTypes) != null) {
+                        return old;
+                    }
+                    Entry[] newArr = old == null ? new Entry[1] : Arrays.copyOf(old, old.length + 1);
+                    newArr[newArr.length - 1] = new Entry(returnType, parameterTypes,
+                            resolve(name, returnType, parameterTypes));
+                    return newArr;
+                });
+                entry = find(arr, returnType, parameterTypes);
+            }
+            return entry.interceptor;
+        }
+
+        /**
+         * 把所有匹配目标方法的拦截器按顺序连接成拦截器链
+         */
+        private MethodInterceptor resolve(String name, Class<?> returnType, Class<?>[] parameterTypes) {
+            List<MethodInterceptorDefinition> matched = new ArrayList<>();
+            for (int index : plan.match(name, returnType, parameterTypes, adviceMethods)) {
+                if (enabled[index]) {
+                    matched.add(definitions.get(index));
+                }
+            }
+            if (matched.isEmpty() && stats == null) {
+                return null;
+            }
+
+            // 开启统计时不内联，以便记录每个增强方法的耗时
+            // 返回CompletionStage的方法需要在完成时执行After和AfterThrowing增强，也不内联
+            if (mode == WeaveMode.INLINE && stats == null && !CompletionStage.class.isAssignableFrom(returnType)) {
+                MethodInterceptor interceptor = inline(matched);
+                if (interceptor != null) {
+                    return interceptor;
+                }
+            }
+
+            MethodKey key = new MethodKey(targetType, name, returnType, parameterTypes);
+            List<FlatChain.Layer> layers = matched.stream()
+                    .map(d -> d.getLayer(key))
+                    .collect(Collectors.toList());
+            if (stats == null) {
+                return new FlatChain(layers);
+            }
+
+            MethodStats methodStats = stats.method(key.toString());
+            return new FlatChain(layers, methodStats, matched.stream()
+                    .map(d -> methodStats.advice(adviceName(d), d.getType().getSimpleName()))
+                    .collect(Collectors.toList()));
+        }
+    }
+
+    /**
+     * 统计中使用的增强方法名，格式为：增强类全名.方法名(参数类型)
+     * 使用增强对象的类而不是声明方法的类，继承同一个增强方法的不同增强类分别统计
+     */
+    private static String adviceName(MethodInterceptorDefinition d) {
+        return d.getAdvice().getClass().getName() + "." + d.getMethod().getName() + Arrays.stream(d.getMethod().getParameterTypes())
+                .map(Class::getTypeName)
+                .collect(Collectors.joining(",", "(", ")"));
+    }
+
+    private final Class<?> targetType;
+    private final WeaveMode mode;
+    private final AopStats stats;
+    private volatile Snapshot snapshot;
+    private volatile boolean prepared = false;
+
+    /**
+     * @param targetType 目标类型
+     * @param definitions 排好序的拦截器定义，排在后面的拦截器位于外层
+     * @param mode 织入方式
+     * @param stats 调用统计，为null时不统计
+     */
+    InterceptorTable(Class<?> targetType, List<MethodInterceptorDefinition> definitions, WeaveMode mode, AopStats stats) {
+        this.targetType = targetType;
+        this.mode = mode;
+        this.stats = stats;
+        this.snapshot = new Snapshot(definitions, Collections.emptySet());
+    }
+
+    @Override
+    public Object intercept(TargetMethod targetMethod) {
+        MethodSignature signature = targetMethod.getSignature();
+        MethodInterceptor interceptor = snapshot.lookup(signature.getName(), signature.getReturnType(), signature.getParameterTypes());
+        if (interceptor == null) {
+            return targetMethod.invokeWithOriginalParams();
+        }
+        return interceptor.intercept(targetMethod);
+    }
+
+    /**
+     * 预先解析目标类型中所有public方法的拦截器链，之后替换拦截器时也预先解析
+     */
+    public void prepare() {
+        prepared = true;
+        snapshot.prepare();
+    }
+
+    /**
+     * 替换生效的拦截器
+     * 新的分派表生成后一次性发布，正在进行的调用继续使用旧的拦截器链
+     * @param definitions 排好序的拦截器定义
+     * @param disabled 其中被禁用的拦截器定义
+     */
+    public void setDefinitions(List<MethodInterceptorDefinition> definitions, Set<MethodInterceptorDefinition> disabled) {
+        Snapshot s = new Snapshot(definitions, disabled);
+        if (prepared) {
+            s.prepare();
+        }
+        snapshot = s;
+    }
+
+    private static Entry find(Entry[] arr, Class<?> returnType, Class<?>[] parameterTypes) {
+        if (arr == null) {
+            return null;
+        }
+        for (Entry e : arr) {
+            if (e.matches(returnType, parameterTypes)) {
+                return e;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 把所有增强方法组合成一个方法句柄，如果有无法织入的增强方法则返回null
+     */
+    private static MethodInterceptor inline(List<MethodInterceptorDefinition> matched) {
+        MethodHandle handle = INVOKE_TARGET_METHOD;
+        for (MethodInterceptorDefinition d : matched) {
+            handle = d.weave(handle);
+            if (handle == null) {
+                return null;
+            }
+        }
+
+        MethodHandle woven = handle;
+        return targetMethod -> {
+            try {
+                return (Object) woven.invokeExact(targetMethod, targetMethod.getParams());
+            } catch (Throwable t) {
+                throw ExceptionUtils.<RuntimeException>sneakyThrow(t);
+            }
+        };
+    }
+}
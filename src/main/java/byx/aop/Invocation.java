@@ -0,0 +1,69 @@
+package byx.aop;
+
+import java.util.Arrays;
+
+/**
+ * 目标方法的一次调用记录，用于AfterBatch增强
+ *
+ * @author byx
+ */
+public class Invocation {
+    private final MethodKey key;
+    private final Object[] args;
+    private final Object returnValue;
+    private final long timestamp;
+
+    Invocation(MethodKey key, Object[] args, Object returnValue) {
+        this.key = key;
+        this.args = args;
+        this.returnValue = returnValue;
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    /**
+     * 目标类型
+     */
+    public Class<?> getTargetType() {
+        return key.getTargetType();
+    }
+
+    /**
+     * 方法名
+     */
+    public String getMethodName() {
+        return key.getName();
+    }
+
+    /**
+     * 方法的参数类型
+     */
+    public Class<?>[] getParameterTypes() {
+        return key.getParameterTypes().clone();
+    }
+
+    /**
+     * 调用参数
+     */
+    public Object[] getArgs() {
+        return args;
+    }
+
+    /**
+     * 返回值
+     */
+    public Object getReturnValue() {
+        return returnValue;
+    }
+
+    /**
+     * 调用返回的时间，即System.currentTimeMillis()
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return key + " " + Arrays.toString(args) + " -> " + returnValue;
+    }
+}
@@ -0,0 +1,160 @@
+package byx.aop;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 有容量上限的并发缓存，用于Cacheable增强
+ * 查找直接读ConcurrentHashMap，不加锁
+ * 淘汰使用CLOCK算法近似LRU：命中时只设置访问标记，插入时由时钟指针扫描环形数组，
+ * 跳过并清除带访问标记的结果，淘汰第一个没有访问标记的结果
+ *
+ * @author byx
+ */
+class MemoCache {
+    /**
+     * 表示缓存未命中
+     */
+    static final Object MISS = new Object();
+
+    private static final Object NULL = new Object();
+    private static final Object EMPTY_KEY = new Object();
+
+    private static class Node {
+        private final Object key;
+        private final Object value;
+        private final long expireAt;
+        private volatile boolean referenced;
+        private volatile boolean removed;
+
+        private Node(Object key, Object value, long expireAt) {
+            this.key = key;
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+    }
+
+    /**
+     * 多个参数组成的缓存键
+     */
+    private static class ArgsKey {
+        private final Object[] args;
+        private final int hash;
+
+        private ArgsKey(Object[] args) {
+            this.args = args;
+            this.hash = Arrays.deepHashCode(args);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof ArgsKey && Arrays.deepEquals(args, ((ArgsKey) o).args);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private final ConcurrentMap<Object, Node> map = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<Node> ring;
+    private final AtomicInteger hand = new AtomicInteger();
+    private final long ttlNanos;
+
+    /**
+     * @param maxSize 最多缓存的结果数，必须大于0
+     * @param ttlNanos 有效期（纳秒），0表示永不过期，不能为负数
+     */
+    MemoCache(int maxSize, long ttlNanos) {
+        if (maxSize <= 0 || ttlNanos < 0) {
+            throw new IllegalArgumentException("maxSize: " + maxSize + ", ttlNanos: " + ttlNanos);
+        }
+        this.ring = new AtomicReferenceArray<>(maxSize);
+        this.ttlNanos = ttlNanos;
+    }
+
+    /**
+     * 根据方法参数生成缓存键
+     * 单个非数组参数直接作为缓存键，避免额外的内存分配
+     */
+    static Object key(Object[] params) {
+        if (params == null || params.length == 0) {
+            return EMPTY_KEY;
+        }
+        if (params.length == 1 && params[0] != null && !params[0].getClass().isArray()) {
+            return params[0];
+        }
+        return new ArgsKey(params.clone());
+    }
+
+    /**
+     * 查找缓存的结果，未命中时返回MISS
+     */
+    Object get(Object key) {
+        Node node = map.get(key);
+        if (node == null) {
+            return MISS;
+        }
+        if (ttlNanos > 0 && System.nanoTime() - node.expireAt > 0) {
+            if (map.remove(key, node)) {
+                node.removed = true;
+            }
+            return MISS;
+        }
+        if (!node.referenced) {
+            node.referenced = true;
+        }
+        return node.value == NULL ? null : node.value;
+    }
+
+    /**
+     * 缓存结果
+     */
+    void put(Object key, Object value) {
+        Node node = new Node(key, value == null ? NULL : value, System.nanoTime() + ttlNanos);
+        Node old = map.put(key, node);
+        if (old != null) {
+            old.removed = true;
+        }
+        place(node);
+    }
+
+    /**
+     * 在环形数组中为新结果找到位置，必要时淘汰旧结果
+     */
+    private void place(Node node) {
+        int capacity = ring.length();
+        for (int i = 0; ; ++i) {
+            int slot = Math.floorMod(hand.getAndIncrement(), capacity);
+            Node victim = ring.get(slot);
+            if (victim == null) {
+                if (ring.compareAndSet(slot, null, node)) {
+                    return;
+                }
+                continue;
+            }
+            // 扫描两圈后仍找不到没有访问标记的结果时，直接淘汰当前结果
+            if (victim.referenced && !victim.removed && i < 2 * capacity) {
+                victim.referenced = false;
+                continue;
+            }
+            if (ring.compareAndSet(slot, victim, node)) {
+                if (map.remove(victim.key, victim)) {
+                    victim.removed = true;
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * 当前缓存的结果数
+     */
+    int size() {
+        return map.size();
+    }
+}
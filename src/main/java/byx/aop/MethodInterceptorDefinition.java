@@ -0,0 +1,835 @@
+package byx.aop;
+
+import byx.aop.annotation.*;
+import byx.aop.exception.BulkheadFullException;
+import byx.aop.exception.ByxAOPException;
+import byx.aop.exception.CircuitBreakerOpenException;
+import byx.aop.exception.IllegalMethodSignatureException;
+import byx.aop.metrics.LatencyHistogram;
+import byx.aop.metrics.Metrics;
+import byx.util.proxy.core.MethodInterceptor;
+import byx.util.proxy.core.TargetMethod;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.UnaryOperator;
+
+import static byx.util.proxy.core.MethodInterceptor.*;
+import static java.lang.invoke.MethodType.methodType;
+
+/**
+ * 存放一个方法拦截器的定义
+ *
+ * @author byx
+ */
+class MethodInterceptorDefinition {
+    private static final MethodHandle TO_OBJECT_ARRAY;
+    private static final MethodHandle RETHROW_ADVICE_EXCEPTION;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            TO_OBJECT_ARRAY = lookup.findStatic(MethodInterceptorDefinition.class, "toObjectArray",
+                    methodType(Object[].class, Object.class));
+            RETHROW_ADVICE_EXCEPTION = lookup.findVirtual(MethodInterceptorDefinition.class, "rethrowAdviceException",
+                    methodType(Object.class, Throwable.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new ByxAOPException("Cannot initialize method handles", e);
+        }
+    }
+
+    private final Object advice;
+    private final AdviceMethod adviceMethod;
+    private final Method method;
+    private final Class<? extends Annotation> type;
+    private final int order;
+    private final boolean async;
+    private final long sampleThreshold;
+    private final Executor asyncExecutor;
+    private final boolean rethrowCheckedExceptions;
+    private final boolean stacklessExceptions;
+    private final String checkedExceptionMessage;
+    private final MethodHandle handle;
+    private final MethodHandle spreadHandle;
+    private final BatchBuffer batchBuffer;
+    private final MethodInterceptor interceptor;
+    private final FlatChain.Layer layer;
+    private final ConcurrentMap<MethodKey, MethodInterceptor> keyedInterceptors = new ConcurrentHashMap<>();
+
+    MethodInterceptorDefinition(Object advice, AdviceMethod adviceMethod, AopOptions options) {
+        this.advice = advice;
+        this.adviceMethod = adviceMethod;
+        this.method = adviceMethod.getMethod();
+        this.type = adviceMethod.getType();
+        this.order = adviceMethod.getOrder();
+        this.async = adviceMethod.isAsync();
+        // 抽样时比较一个32位无符号随机数与阈值，不抽样时阈值为-1
+        double rate = adviceMethod.getSampleRate();
+        this.sampleThreshold = rate >= 1 ? -1 : (long) (rate * (1L << 32));
+        this.asyncExecutor = options.getAsyncExecutor();
+        this.rethrowCheckedExceptions = options.isRethrowCheckedExceptions();
+        this.stacklessExceptions = options.isStacklessExceptions();
+        this.checkedExceptionMessage = "Enhanced methods cannot throw checked exceptions: " + method;
+        this.handle = adviceMethod.bind(advice);
+        this.spreadHandle = handle.asSpreader(Object[].class, method.getParameterCount());
+        this.batchBuffer = type == AfterBatch.class ? createBatchBuffer() : null;
+        this.interceptor = sampled(getMethodInterceptor(type));
+        this.layer = createLayer();
+    }
+
+    public int getOrder() {
+        return order;
+    }
+
+    /**
+     * 获取作用于目标方法的拦截器，不包含方法匹配逻辑
+     * 大部分拦截器在创建定义时就已生成，所有目标方法共用
+     * 需要按目标方法分别保存状态的拦截器（如Timed、Cacheable、AfterBatch、Bulkhead、CircuitBreaker）在这里为每个目标方法单独生成，
+     * 生成后保存起来，重新生成分派表时不会丢失状态
+     */
+    public MethodInterceptor getInterceptor(MethodKey key) {
+        if (type == Timed.class) {
+            return keyedInterceptors.computeIfAbsent(key, k -> sampled(processTimed(k)));
+        } else if (type == Cacheable.class) {
+            return keyedInterceptors.computeIfAbsent(key, k -> sampled(processCacheable()));
+        } else if (type == AfterBatch.class) {
+            return keyedInterceptors.computeIfAbsent(key, k -> sampled(processAfterBatch(k)));
+        } else if (type == Bulkhead.class) {
+            return keyedInterceptors.computeIfAbsent(key, k -> sampled(processBulkhead(k)));
+        } else if (type == CircuitBreaker.class) {
+            return keyedInterceptors.computeIfAbsent(key, k -> sampled(processCircuitBreaker(k)));
+        } else if (awaitsCompletion(key)) {
+            return keyedInterceptors.computeIfAbsent(key, k -> sampled(type == After.class
+                    ? processAfterCompletion() : processAfterThrowingCompletion()));
+        }
+        return interceptor;
+    }
+
+    /**
+     * 判断After或AfterThrowing增强是否需要等到目标方法返回的CompletionStage完成后再执行
+     * 目标方法的返回类型必须能接收thenApply等方法返回的CompletableFuture
+     * After增强方法的参数本身就是CompletionStage或Future时，仍然接收目标方法返回的对象
+     */
+    private boolean awaitsCompletion(MethodKey key) {
+        Class<?> returnType = key.getReturnType();
+        if (!CompletionStage.class.isAssignableFrom(returnType) || !returnType.isAssignableFrom(CompletableFuture.class)) {
+            return false;
+        }
+        if (type == After.class) {
+            if (method.getParameterCount() == 0) {
+                return true;
+            }
+            Class<?> paramType = method.getParameterTypes()[0];
+            return !CompletionStage.class.isAssignableFrom(paramType) && !Future.class.isAssignableFrom(paramType);
+        }
+        return type == AfterThrowing.class;
+    }
+
+    /**
+     * 获取作用于目标方法的拦截器在FlatChain中的形式
+     * Before、After和AfterThrowing增强直接处理参数、返回值和异常，由FlatChain依次调用，
+     * 其它增强需要TargetMethod对象，使用getInterceptor返回的拦截器
+     */
+    public FlatChain.Layer getLayer(MethodKey key) {
+        return layer != null && !awaitsCompletion(key) ? layer : FlatChain.Layer.around(getInterceptor(key));
+    }
+
+    private FlatChain.Layer createLayer() {
+        if (sampleThreshold >= 0) {
+            return null;
+        }
+        if (type == Before.class) {
+            return FlatChain.Layer.before(beforeFunction());
+        } else if (type == After.class) {
+            return FlatChain.Layer.after(afterFunction());
+        } else if (type == AfterThrowing.class && !async) {
+            return FlatChain.Layer.afterThrowing(this::callAdviceMethod);
+        }
+        return null;
+    }
+
+    /**
+     * 如果增强方法有Sampled注解，则只在抽中的调用中执行拦截器，其余调用直接执行拦截器链的下一层
+     * 使用线程本地的随机数生成器，多个线程之间没有竞争
+     */
+    private MethodInterceptor sampled(MethodInterceptor interceptor) {
+        if (interceptor == null || sampleThreshold < 0) {
+            return interceptor;
+        }
+        long threshold = sampleThreshold;
+        return targetMethod -> (ThreadLocalRandom.current().nextInt() & 0xFFFFFFFFL) < threshold
+                ? interceptor.intercept(targetMethod)
+                : targetMethod.invokeWithOriginalParams();
+    }
+
+    /**
+     * 增强方法的解析结果
+     */
+    public AdviceMethod getAdviceMethod() {
+        return adviceMethod;
+    }
+
+    /**
+     * 增强方法所属的增强对象
+     */
+    public Object getAdvice() {
+        return advice;
+    }
+
+    /**
+     * 增强方法
+     */
+    public Method getMethod() {
+        return method;
+    }
+
+    /**
+     * 拦截类型注解
+     */
+    public Class<? extends Annotation> getType() {
+        return type;
+    }
+
+    /**
+     * Filter注解指定的方法名，没有指定时返回null
+     */
+    public String getName() {
+        return adviceMethod.getName();
+    }
+
+    /**
+     * 判断目标方法是否满足Filter注解的条件
+     */
+    public boolean matches(String name, Class<?> returnType, Class<?>[] parameterTypes) {
+        return adviceMethod.matches(name, returnType, parameterTypes);
+    }
+
+    /**
+     * 解析拦截类型注解，生成方法拦截器
+     */
+    private MethodInterceptor getMethodInterceptor(Class<? extends Annotation> type) {
+        if (type == Before.class) {
+            return processBefore();
+        } else if (type == After.class) {
+            return processAfter();
+        } else if (type == Around.class) {
+            return processAround();
+        } else if (type == Replace.class) {
+            return processReplace();
+        } else if (type == AfterThrowing.class) {
+            return processAfterThrowing();
+        } else if (type == Timed.class || type == Cacheable.class || type == Bulkhead.class
+                || type == CircuitBreaker.class) {
+            // 只用于声明的增强方法，拦截器在getInterceptor中为每个目标方法单独生成
+            if (method.getParameterCount() > 0 || method.getReturnType() != void.class) {
+                throw new IllegalMethodSignatureException(method, type);
+            }
+            if (type == Cacheable.class) {
+                checkCacheable();
+            } else if (type == Bulkhead.class) {
+                checkBulkhead();
+            } else if (type == CircuitBreaker.class) {
+                checkCircuitBreaker();
+            }
+            return null;
+        } else if (type == AfterBatch.class) {
+            // 拦截器在getInterceptor中为每个目标方法单独生成
+            return null;
+        } else if (type == Retry.class) {
+            return processRetry();
+        } else {
+            return invokeTargetMethod();
+        }
+    }
+
+    /**
+     * 调用增强对象的方法
+     * 如果增强对象的方法抛出RuntimeException，则直接向外抛出，受检异常的处理见adviceException
+     */
+    private Object callAdviceMethod(Object[] params) {
+        try {
+            return (Object) spreadHandle.invokeExact(params);
+        } catch (Throwable t) {
+            throw adviceException(t);
+        }
+    }
+
+    /**
+     * 调用无参数的增强方法
+     */
+    private Object callAdviceMethod() {
+        try {
+            return (Object) handle.invokeExact();
+        } catch (Throwable t) {
+            throw adviceException(t);
+        }
+    }
+
+    /**
+     * 调用只有一个参数的增强方法
+     */
+    private Object callAdviceMethod(Object param) {
+        try {
+            return (Object) handle.invokeExact(param);
+        } catch (Throwable t) {
+            throw adviceException(t);
+        }
+    }
+
+    /**
+     * 把增强方法抛出的异常转换成向外抛出的异常
+     * RuntimeException和Error原样抛出，受检异常根据选项原样抛出或者包装成ByxAOPException
+     */
+    private RuntimeException adviceException(Throwable t) {
+        if (t instanceof RuntimeException) {
+            return (RuntimeException) t;
+        } else if (t instanceof Error) {
+            throw (Error) t;
+        } else if (rethrowCheckedExceptions) {
+            throw ExceptionUtils.<RuntimeException>sneakyThrow(t);
+        } else {
+            return new ByxAOPException(checkedExceptionMessage, t, !stacklessExceptions);
+        }
+    }
+
+    private Object rethrowAdviceException(Throwable t) {
+        throw adviceException(t);
+    }
+
+    /**
+     * 把Before增强返回的数组转换成参数数组
+     * 一个基本类型的数组无法强制转换成Object[]，所以只能把每个元素单独拿出来放入一个新的Object[]中
+     * 常见的基本类型直接按类型复制，避免通过反射逐个读取元素
+     * 本身就是Object[]的数组直接使用，不再复制
+     */
+    private static Object[] toObjectArray(Object array) {
+        if (array instanceof Object[]) {
+            Object[] a = (Object[]) array;
+            return a.getClass() == Object[].class ? a : Arrays.copyOf(a, a.length, Object[].class);
+        } else if (array instanceof int[]) {
+            int[] a = (int[]) array;
+            Object[] arr = new Object[a.length];
+            for (int i = 0; i < a.length; ++i) {
+                arr[i] = a[i];
+            }
+            return arr;
+        } else if (array instanceof long[]) {
+            long[] a = (long[]) array;
+            Object[] arr = new Object[a.length];
+            for (int i = 0; i < a.length; ++i) {
+                arr[i] = a[i];
+            }
+            return arr;
+        } else if (array instanceof double[]) {
+            double[] a = (double[]) array;
+            Object[] arr = new Object[a.length];
+            for (int i = 0; i < a.length; ++i) {
+                arr[i] = a[i];
+            }
+            return arr;
+        } else if (array instanceof boolean[]) {
+            boolean[] a = (boolean[]) array;
+            Object[] arr = new Object[a.length];
+            for (int i = 0; i < a.length; ++i) {
+                arr[i] = a[i];
+            }
+            return arr;
+        } else {
+            int len = Array.getLength(array);
+            Object[] arr = new Object[len];
+            for (int i = 0; i < len; ++i) {
+                arr[i] = Array.get(array, i);
+            }
+            return arr;
+        }
+    }
+
+    /**
+     * 把增强方法织入方法句柄next的外层，next的类型为(TargetMethod, Object[])Object
+     * Around和Retry增强需要TargetMethod对象，Timed、Cacheable、AfterBatch、Bulkhead和CircuitBreaker增强需要按目标方法分别保存状态，
+     * 异步增强需要提交到执行器，抽样增强需要在每次调用时选择是否执行，都无法织入，此时返回null
+     */
+    public MethodHandle weave(MethodHandle next) {
+        if (async || sampleThreshold >= 0) {
+            return null;
+        }
+
+        // 与callAdviceMethod一样，把增强方法抛出的受检异常转换成ByxAOPException
+        MethodHandle h = MethodHandles.catchException(handle, Throwable.class,
+                MethodHandles.dropArguments(RETHROW_ADVICE_EXCEPTION.bindTo(this),
+                        1, handle.type().parameterList()));
+        int n = method.getParameterCount();
+
+        if (type == Before.class) {
+            MethodHandle filter;
+            if (n == 0) {
+                filter = MethodHandles.foldArguments(MethodHandles.identity(Object[].class),
+                        MethodHandles.dropArguments(h.asType(methodType(void.class)), 0, Object[].class));
+            } else if (method.getReturnType().isArray()) {
+                filter = MethodHandles.filterReturnValue(h.asSpreader(Object[].class, n), TO_OBJECT_ARRAY);
+            } else {
+                filter = MethodHandles.foldArguments(MethodHandles.identity(Object[].class),
+                        h.asSpreader(Object[].class, n).asType(methodType(void.class, Object[].class)));
+            }
+            return MethodHandles.filterArguments(next, 1, filter);
+        } else if (type == After.class) {
+            MethodHandle filter;
+            if (n == 0) {
+                filter = MethodHandles.foldArguments(MethodHandles.identity(Object.class),
+                        MethodHandles.dropArguments(h.asType(methodType(void.class)), 0, Object.class));
+            } else if (method.getReturnType() == void.class) {
+                filter = MethodHandles.foldArguments(MethodHandles.identity(Object.class),
+                        h.asType(methodType(void.class, Object.class)));
+            } else {
+                filter = h;
+            }
+            return MethodHandles.filterReturnValue(next, filter);
+        } else if (type == Replace.class) {
+            return MethodHandles.dropArguments(h.asSpreader(Object[].class, n), 0, TargetMethod.class);
+        } else if (type == AfterThrowing.class) {
+            return MethodHandles.catchException(next, Throwable.class,
+                    MethodHandles.dropArguments(h.asType(methodType(Object.class, Throwable.class)),
+                            1, TargetMethod.class, Object[].class));
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * 解析Before注解
+     */
+    private MethodInterceptor processBefore() {
+        UnaryOperator<Object[]> before = beforeFunction();
+        return interceptParameters(before::apply);
+    }
+
+    /**
+     * Before增强对参数的处理
+     */
+    private UnaryOperator<Object[]> beforeFunction() {
+        if (method.getParameterCount() > 0) {
+            if (method.getReturnType().isArray()) {
+                return params -> toObjectArray(callAdviceMethod(params));
+            } else if(method.getReturnType() == void.class) {
+                return params -> {
+                    callAdviceMethod(params);
+                    return params;
+                };
+            } else {
+                throw new IllegalMethodSignatureException(method, Before.class);
+            }
+        } else {
+            return params -> {
+                callAdviceMethod();
+                return params;
+            };
+        }
+    }
+
+    /**
+     * 在异步执行器中调用增强方法，增强方法抛出的异常交给执行线程的UncaughtExceptionHandler处理
+     */
+    private void callAdviceMethodAsync(Runnable call) {
+        asyncExecutor.execute(() -> {
+            try {
+                call.run();
+            } catch (Throwable t) {
+                Thread thread = Thread.currentThread();
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, t);
+            }
+        });
+    }
+
+    /**
+     * 解析After注解
+     */
+    private MethodInterceptor processAfter() {
+        UnaryOperator<Object> after = afterFunction();
+        return interceptReturnValue(after::apply);
+    }
+
+    /**
+     * After增强对返回值的处理
+     */
+    private UnaryOperator<Object> afterFunction() {
+        if (async) {
+            if (method.getReturnType() != void.class || method.getParameterCount() > 1) {
+                throw new IllegalMethodSignatureException(method, After.class);
+            }
+            if (method.getParameterCount() == 0) {
+                return returnValue -> {
+                    callAdviceMethodAsync(this::callAdviceMethod);
+                    return returnValue;
+                };
+            }
+            return returnValue -> {
+                callAdviceMethodAsync(() -> callAdviceMethod(returnValue));
+                return returnValue;
+            };
+        }
+
+        if (method.getParameterCount() == 0) {
+            return returnValue -> {
+                callAdviceMethod();
+                return returnValue;
+            };
+        } else if (method.getParameterCount() == 1) {
+            if (method.getReturnType() == void.class) {
+                return returnValue -> {
+                    callAdviceMethod(returnValue);
+                    return returnValue;
+                };
+            } else {
+                return this::callAdviceMethod;
+            }
+        } else {
+            throw new IllegalMethodSignatureException(method, After.class);
+        }
+    }
+
+    /**
+     * 目标方法返回CompletionStage时的After增强，在CompletionStage正常完成时以其结果调用增强方法
+     * 增强方法的返回值作为新的结果，增强方法抛出的异常使返回的CompletionStage异常完成
+     */
+    private MethodInterceptor processAfterCompletion() {
+        UnaryOperator<Object> after = afterFunction();
+        return targetMethod -> {
+            CompletionStage<?> stage = (CompletionStage<?>) targetMethod.invokeWithOriginalParams();
+            return stage == null ? null : stage.thenApply(after);
+        };
+    }
+
+    /**
+     * 目标方法返回CompletionStage时的AfterThrowing增强
+     * 目标方法直接抛出的异常与普通方法的处理方式相同，增强方法的返回值不是CompletionStage时（包括void增强方法返回的null）包装成已完成的CompletableFuture；
+     * CompletionStage异常完成时以原始异常调用增强方法，增强方法的返回值作为CompletionStage的结果；异步执行时CompletionStage的结果不变
+     */
+    @SuppressWarnings("unchecked")
+    private MethodInterceptor processAfterThrowingCompletion() {
+        // 与普通方法使用相同的签名检查
+        getMethodInterceptor(AfterThrowing.class);
+        return targetMethod -> {
+            CompletionStage<Object> stage;
+            try {
+                stage = (CompletionStage<Object>) targetMethod.invokeWithOriginalParams();
+            } catch (Throwable t) {
+                if (async) {
+                    callAdviceMethodAsync(() -> callAdviceMethod(t));
+                    throw ExceptionUtils.<RuntimeException>sneakyThrow(t);
+                }
+                Object result = callAdviceMethod(t);
+                return result instanceof CompletionStage ? result : CompletableFuture.completedFuture(result);
+            }
+            if (stage == null) {
+                return null;
+            }
+            if (async) {
+                stage.whenComplete((v, t) -> {
+                    if (t != null) {
+                        callAdviceMethodAsync(() -> callAdviceMethod(ExceptionUtils.unwrap(t)));
+                    }
+                });
+                return stage;
+            }
+            return stage.exceptionally(t -> callAdviceMethod(ExceptionUtils.unwrap(t)));
+        };
+    }
+
+    /**
+     * 解析Around注解
+     */
+    private MethodInterceptor processAround() {
+        return targetMethod -> callAdviceMethod(targetMethod);
+    }
+
+    /**
+     * 解析Replace注解
+     */
+    private MethodInterceptor processReplace() {
+        return targetMethod -> callAdviceMethod(targetMethod.getParams());
+    }
+
+    /**
+     * 解析AfterThrowing注解
+     * 异步执行时增强方法无法提供返回值，异常仍然抛给调用者
+     */
+    private MethodInterceptor processAfterThrowing() {
+        if (async) {
+            if (method.getReturnType() != void.class || method.getParameterCount() != 1) {
+                throw new IllegalMethodSignatureException(method, AfterThrowing.class);
+            }
+            return targetMethod -> {
+                try {
+                    return targetMethod.invokeWithOriginalParams();
+                } catch (Throwable t) {
+                    callAdviceMethodAsync(() -> callAdviceMethod(t));
+                    throw ExceptionUtils.<RuntimeException>sneakyThrow(t);
+                }
+            };
+        }
+        return interceptException(t -> callAdviceMethod(t));
+    }
+
+    /**
+     * 解析Timed注解
+     */
+    private MethodInterceptor processTimed(MethodKey key) {
+        String name = method.getAnnotation(Timed.class).value();
+        LatencyHistogram histogram = Metrics.global().timer("".equals(name) ? key.toString() : name);
+        return targetMethod -> {
+            long start = System.nanoTime();
+            try {
+                return targetMethod.invokeWithOriginalParams();
+            } finally {
+                histogram.record(System.nanoTime() - start);
+            }
+        };
+    }
+
+    /**
+     * 检查Cacheable注解的参数，在创建定义时拒绝不合法的值
+     */
+    private void checkCacheable() {
+        Cacheable cacheable = method.getAnnotation(Cacheable.class);
+        if (cacheable.maxSize() <= 0 || cacheable.ttl() < 0) {
+            throw new ByxAOPException("Illegal cache settings: " + method);
+        }
+    }
+
+    /**
+     * 解析Cacheable注解
+     */
+    private MethodInterceptor processCacheable() {
+        Cacheable cacheable = method.getAnnotation(Cacheable.class);
+        MemoCache cache = new MemoCache(cacheable.maxSize(), cacheable.unit().toNanos(cacheable.ttl()));
+        return targetMethod -> {
+            Object key = MemoCache.key(targetMethod.getParams());
+            Object value = cache.get(key);
+            if (value == MemoCache.MISS) {
+                value = targetMethod.invokeWithOriginalParams();
+                cache.put(key, value);
+            }
+            return value;
+        };
+    }
+
+    /**
+     * 检查Bulkhead注解的参数，在创建定义时拒绝不合法的值
+     */
+    private void checkBulkhead() {
+        Bulkhead bulkhead = method.getAnnotation(Bulkhead.class);
+        if (bulkhead.maxConcurrent() < 0 || bulkhead.maxWait() < 0) {
+            throw new ByxAOPException("Illegal bulkhead settings: " + method);
+        }
+    }
+
+    /**
+     * 解析Bulkhead注解，同名的Bulkhead共用并发名额
+     * 目标方法返回CompletionStage时，名额在CompletionStage完成时释放
+     */
+    private MethodInterceptor processBulkhead(MethodKey key) {
+        Bulkhead bulkhead = method.getAnnotation(Bulkhead.class);
+        String name = "".equals(bulkhead.value()) ? key.toString() : bulkhead.value();
+        ConcurrencyLimiter limiter = Bulkheads.global().limiter(name, bulkhead.maxConcurrent());
+        long maxWaitNanos = bulkhead.unit().toNanos(bulkhead.maxWait());
+        boolean completionStage = CompletionStage.class.isAssignableFrom(key.getReturnType());
+        return targetMethod -> {
+            if (!limiter.acquire(maxWaitNanos)) {
+                throw new BulkheadFullException(name, !stacklessExceptions);
+            }
+            Object result;
+            try {
+                result = targetMethod.invokeWithOriginalParams();
+            } catch (Throwable t) {
+                limiter.release();
+                throw ExceptionUtils.<RuntimeException>sneakyThrow(t);
+            }
+            if (completionStage && result != null) {
+                ((CompletionStage<?>) result).whenComplete((v, t) -> limiter.release());
+            } else {
+                limiter.release();
+            }
+            return result;
+        };
+    }
+
+    /**
+     * 检查CircuitBreaker注解的参数和降级方法名，在创建定义时拒绝不合法的值
+     * 降级方法与目标方法参数的匹配在生成目标方法的拦截器时检查
+     */
+    private void checkCircuitBreaker() {
+        CircuitBreaker breaker = method.getAnnotation(CircuitBreaker.class);
+        if (breaker.windowSize() <= 0 || breaker.minCalls() <= 0 || breaker.openDuration() < 0
+                || !(breaker.failureRate() > 0 && breaker.failureRate() <= 1)) {
+            throw new ByxAOPException("Illegal circuit breaker settings: " + method);
+        }
+        String fallback = breaker.fallback();
+        if (!"".equals(fallback) && Arrays.stream(advice.getClass().getMethods())
+                .noneMatch(m -> !m.isBridge() && m.getName().equals(fallback))) {
+            throw new ByxAOPException("No such fallback method: " + advice.getClass().getName() + "." + fallback);
+        }
+    }
+
+    /**
+     * 解析CircuitBreaker注解，同名的CircuitBreaker共用熔断器
+     * 目标方法返回CompletionStage时，在CompletionStage完成时记录调用结果
+     */
+    private MethodInterceptor processCircuitBreaker(MethodKey key) {
+        CircuitBreaker breaker = method.getAnnotation(CircuitBreaker.class);
+        String name = "".equals(breaker.value()) ? key.toString() : breaker.value();
+        CircuitState state = CircuitBreakers.global().state(name, k -> new CircuitState(k, breaker.windowSize(),
+                breaker.minCalls(), breaker.failureRate(), breaker.unit().toNanos(breaker.openDuration())));
+        Class<? extends Throwable>[] failOn = breaker.failOn();
+        MethodHandle fallback = "".equals(breaker.fallback()) ? null : findFallback(breaker.fallback(), key);
+        boolean completionStage = CompletionStage.class.isAssignableFrom(key.getReturnType());
+        return targetMethod -> {
+            int permit = state.acquire();
+            if (permit == CircuitState.REJECTED) {
+                if (fallback == null) {
+                    throw new CircuitBreakerOpenException(name, !stacklessExceptions);
+                }
+                try {
+                    return fallback.invokeExact(targetMethod.getParams());
+                } catch (Throwable t) {
+                    throw adviceException(t);
+                }
+            }
+
+            Object result;
+            try {
+                result = targetMethod.invokeWithOriginalParams();
+            } catch (Throwable t) {
+                recordResult(state, permit, failOn, t);
+                throw ExceptionUtils.<RuntimeException>sneakyThrow(t);
+            }
+            if (completionStage && result != null) {
+                ((CompletionStage<?>) result).whenComplete((v, t) -> recordResult(state, permit, failOn,
+                        ExceptionUtils.unwrap(t)));
+            } else {
+                state.onSuccess(permit);
+            }
+            return result;
+        };
+    }
+
+    private static void recordResult(CircuitState state, int permit, Class<? extends Throwable>[] failOn, Throwable t) {
+        if (t != null) {
+            for (Class<? extends Throwable> type : failOn) {
+                if (type.isInstance(t)) {
+                    state.onFailure(permit);
+                    return;
+                }
+            }
+        }
+        state.onSuccess(permit);
+    }
+
+    /**
+     * 在增强类中查找降级方法，生成类型为(Object[])Object的方法句柄
+     * 降级方法的每个参数都要能接收目标方法对应的参数，返回值要能作为目标方法的返回值
+     * 有多个重载方法符合条件时选择参数类型最具体的一个
+     */
+    private MethodHandle findFallback(String name, MethodKey key) {
+        Method fallback = null;
+        for (Method m : advice.getClass().getMethods()) {
+            if (m.isBridge() || !m.getName().equals(name) || !isFallbackFor(m, key)) {
+                continue;
+            }
+            if (fallback == null || isMoreSpecific(m, fallback)) {
+                fallback = m;
+            } else if (!isMoreSpecific(fallback, m)) {
+                throw new ByxAOPException("Ambiguous fallback method: " + fallback + ", " + m);
+            }
+        }
+        if (fallback == null) {
+            throw new ByxAOPException("No such fallback method: " + advice.getClass().getName() + "." + name
+                    + " for " + key);
+        }
+        int n = fallback.getParameterCount();
+        return MethodHandles.insertArguments(AdviceMethod.unreflect(fallback), 0, advice)
+                .asSpreader(Object[].class, n);
+    }
+
+    private static boolean isFallbackFor(Method m, MethodKey key) {
+        Class<?>[] types = key.getParameterTypes();
+        if (m.getParameterCount() != types.length) {
+            return false;
+        }
+        for (int i = 0; i < types.length; ++i) {
+            if (!isAssignable(types[i], m.getParameterTypes()[i])) {
+                return false;
+            }
+        }
+        return key.getReturnType() == void.class || isAssignable(m.getReturnType(), key.getReturnType());
+    }
+
+    /**
+     * m1的每个参数类型都能赋值给m2对应的参数类型，并且两者不同
+     */
+    private static boolean isMoreSpecific(Method m1, Method m2) {
+        Class<?>[] p1 = m1.getParameterTypes(), p2 = m2.getParameterTypes();
+        for (int i = 0; i < p1.length; ++i) {
+            if (!isAssignable(p1[i], p2[i])) {
+                return false;
+            }
+        }
+        return !Arrays.equals(p1, p2);
+    }
+
+    /**
+     * 判断from类型的值能否传给to类型，基本类型按包装类型比较
+     */
+    private static boolean isAssignable(Class<?> from, Class<?> to) {
+        return methodType(to).wrap().returnType().isAssignableFrom(methodType(from).wrap().returnType());
+    }
+
+    /**
+     * 解析Retry注解
+     */
+    private MethodInterceptor processRetry() {
+        if (method.getParameterCount() > 0 || method.getReturnType() != void.class) {
+            throw new IllegalMethodSignatureException(method, Retry.class);
+        }
+        return new RetryPolicy(method, asyncExecutor);
+    }
+
+    /**
+     * 解析AfterBatch注解，获取同一个增强对象的增强方法在所有代理对象、所有目标方法之间共用的调用记录缓冲区
+     */
+    private BatchBuffer createBatchBuffer() {
+        AfterBatch afterBatch = method.getAnnotation(AfterBatch.class);
+        if (method.getParameterCount() != 1 || !method.getParameterTypes()[0].isAssignableFrom(List.class)
+                || method.getReturnType() != void.class) {
+            throw new IllegalMethodSignatureException(method, AfterBatch.class);
+        }
+        if (afterBatch.size() <= 0 || afterBatch.interval() < 0) {
+            throw new ByxAOPException("Illegal batch size or interval: " + method);
+        }
+        return BatchBuffer.shared(advice, method, afterBatch.size(), afterBatch.unit().toNanos(afterBatch.interval()),
+                this::callAdviceMethod);
+    }
+
+    /**
+     * 目标方法正常返回后把调用记录放入缓冲区
+     */
+    private MethodInterceptor processAfterBatch(MethodKey key) {
+        return targetMethod -> {
+            Object returnValue = targetMethod.invokeWithOriginalParams();
+            batchBuffer.add(new Invocation(key, targetMethod.getParams(), returnValue));
+            return returnValue;
+        };
+    }
+}
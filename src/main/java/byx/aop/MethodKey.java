@@ -0,0 +1,69 @@
+package byx.aop;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * 标识一个被代理的目标方法
+ *
+ * @author byx
+ */
+class MethodKey {
+    private final Class<?> targetType;
+    private final String name;
+    private final Class<?> returnType;
+    private final Class<?>[] parameterTypes;
+    private final String id;
+
+    MethodKey(Class<?> targetType, String name, Class<?> returnType, Class<?>[] parameterTypes) {
+        this.targetType = targetType;
+        this.name = name;
+        this.returnType = returnType;
+        this.parameterTypes = parameterTypes;
+        this.id = targetType.getName() + "." + name + Arrays.stream(parameterTypes)
+                .map(Class::getTypeName)
+                .collect(Collectors.joining(",", "(", ")"));
+    }
+
+    public Class<?> getTargetType() {
+        return targetType;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Class<?> getReturnType() {
+        return returnType;
+    }
+
+    public Class<?>[] getParameterTypes() {
+        return parameterTypes;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof MethodKey)) {
+            return false;
+        }
+        MethodKey key = (MethodKey) o;
+        return targetType == key.targetType && name.equals(key.name) && returnType == key.returnType
+                && Arrays.equals(parameterTypes, key.parameterTypes);
+    }
+
+    @Override
+    public int hashCode() {
+        return id.hashCode();
+    }
+
+    /**
+     * 方法的标识字符串，格式为：类名.方法名(参数类型,...)，参数类型使用完整类名，避免简单类名相同的重载方法冲突
+     */
+    @Override
+    public String toString() {
+        return id;
+    }
+}
@@ -0,0 +1,39 @@
+package byx.aop;
+
+import java.lang.ref.ReferenceQueue;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 记录代理对象与创建它的工厂之间的对应关系
+ * 按对象标识比较，不调用代理对象的equals和hashCode（这两个方法也会被拦截）
+ * 只持有代理对象的弱引用，代理对象被回收后对应的记录自动清除
+ *
+ * @author byx
+ */
+class ProxyRegistry {
+    private static final Map<WeakIdentityKey, AopProxyFactory<?>> FACTORIES = new HashMap<>();
+    private static final ReferenceQueue<Object> QUEUE = new ReferenceQueue<>();
+
+    private ProxyRegistry() {
+    }
+
+    static synchronized void register(Object proxy, AopProxyFactory<?> factory) {
+        expunge();
+        FACTORIES.put(new WeakIdentityKey(proxy, QUEUE), factory);
+    }
+
+    /**
+     * 获取创建代理对象的工厂，不是已注册的代理对象时返回null
+     */
+    static synchronized AopProxyFactory<?> get(Object proxy) {
+        expunge();
+        return FACTORIES.get(new WeakIdentityKey(proxy, null));
+    }
+
+    private static void expunge() {
+        for (Object ref; (ref = QUEUE.poll()) != null; ) {
+            FACTORIES.remove(ref);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package byx.aop;
+
+/**
+ * 异步增强的任务队列已满时的处理方式
+ *
+ * @author byx
+ */
+public enum RejectPolicy {
+    /**
+     * 在调用线程中直接执行增强方法
+     */
+    CALLER_RUNS,
+
+    /**
+     * 丢弃该次增强
+     */
+    DISCARD,
+
+    /**
+     * 向调用者抛出RejectedExecutionException
+     */
+    ABORT
+}
@@ -0,0 +1,154 @@
+package byx.aop;
+
+import byx.aop.annotation.Retry;
+import byx.aop.exception.ByxAOPException;
+import byx.util.proxy.core.MethodInterceptor;
+import byx.util.proxy.core.TargetMethod;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Retry注解的重试策略
+ * 同步方法在调用线程中等待后重试；返回CompletionStage的方法由共享的定时器等待，
+ * 等待结束后把重试交给异步增强的执行器，定时器线程本身不调用目标方法，不占用调用线程
+ * 执行器已满时不使用它的拒绝策略，而是放弃重试，返回的CompletableFuture以最后一次的异常完成
+ *
+ * @author byx
+ */
+class RetryPolicy implements MethodInterceptor {
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "byx-aop-retry");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final int maxAttempts;
+    private final long backoffNanos;
+    private final double multiplier;
+    private final long maxBackoffNanos;
+    private final double jitter;
+    private final Class<? extends Throwable>[] retryOn;
+    private final Executor executor;
+
+    RetryPolicy(Method method, Executor executor) {
+        Retry retry = method.getAnnotation(Retry.class);
+        if (retry.maxAttempts() < 1 || retry.backoff() < 0 || retry.maxBackoff() < retry.backoff()
+                || !(retry.multiplier() >= 1) || !(retry.jitter() >= 0 && retry.jitter() <= 1)) {
+            throw new ByxAOPException("Illegal retry settings: " + method);
+        }
+        this.maxAttempts = retry.maxAttempts();
+        this.backoffNanos = retry.unit().toNanos(retry.backoff());
+        this.multiplier = retry.multiplier();
+        this.maxBackoffNanos = retry.unit().toNanos(retry.maxBackoff());
+        this.jitter = retry.jitter();
+        this.retryOn = retry.retryOn();
+        this.executor = executor;
+    }
+
+    @Override
+    public Object intercept(TargetMethod targetMethod) {
+        Object[] params = targetMethod.getParams();
+        // 只有代理方法能返回CompletableFuture时才异步重试，否则只重试同步抛出的异常
+        Class<?> returnType = targetMethod.getSignature().getReturnType();
+        if (CompletionStage.class.isAssignableFrom(returnType) && returnType.isAssignableFrom(CompletableFuture.class)) {
+            CompletableFuture<Object> result = new CompletableFuture<>();
+            attempt(targetMethod, params, 1, result);
+            return result;
+        }
+
+        for (int attempt = 1; ; ++attempt) {
+            try {
+                return targetMethod.invoke(params);
+            } catch (Throwable t) {
+                if (!shouldRetry(t, attempt)) {
+                    throw ExceptionUtils.<RuntimeException>sneakyThrow(t);
+                }
+                // parkNanos可能提前返回，等到截止时间为止；被中断时不再重试，保留中断状态
+                long deadline = System.nanoTime() + delayNanos(attempt);
+                for (long remaining = deadline - System.nanoTime(); remaining > 0; remaining = deadline - System.nanoTime()) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        break;
+                    }
+                    LockSupport.parkNanos(remaining);
+                }
+                if (Thread.currentThread().isInterrupted()) {
+                    throw ExceptionUtils.<RuntimeException>sneakyThrow(t);
+                }
+            }
+        }
+    }
+
+    /**
+     * 调用一次返回CompletionStage的目标方法，失败时由定时器等待后在执行器中进行下一次调用
+     */
+    private void attempt(TargetMethod targetMethod, Object[] params, int attempt, CompletableFuture<Object> result) {
+        CompletionStage<?> stage;
+        try {
+            stage = (CompletionStage<?>) targetMethod.invoke(params);
+        } catch (Throwable t) {
+            onFailure(targetMethod, params, attempt, result, t);
+            return;
+        }
+        if (stage == null) {
+            result.complete(null);
+            return;
+        }
+        stage.whenComplete((value, t) -> {
+            if (t == null) {
+                result.complete(value);
+            } else {
+                onFailure(targetMethod, params, attempt, result, t);
+            }
+        });
+    }
+
+    private void onFailure(TargetMethod targetMethod, Object[] params, int attempt,
+                           CompletableFuture<Object> result, Throwable t) {
+        Throwable cause = ExceptionUtils.unwrap(t);
+        if (!shouldRetry(cause, attempt)) {
+            result.completeExceptionally(cause);
+            return;
+        }
+        TIMER.schedule(() -> {
+            // 定时器线程只负责等待，不调用目标方法；执行器已满时放弃重试，以最后一次的异常结束
+            try {
+                if (AsyncExecutors.tryExecute(executor, () -> attempt(targetMethod, params, attempt + 1, result))) {
+                    return;
+                }
+                cause.addSuppressed(new RejectedExecutionException("Retry abandoned, async executor is full"));
+            } catch (RuntimeException e) {
+                cause.addSuppressed(e);
+            }
+            result.completeExceptionally(cause);
+        }, delayNanos(attempt), TimeUnit.NANOSECONDS);
+    }
+
+    private boolean shouldRetry(Throwable t, int attempt) {
+        if (attempt >= maxAttempts) {
+            return false;
+        }
+        for (Class<? extends Throwable> type : retryOn) {
+            if (type.isInstance(t)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 第attempt次调用失败后的等待时间：backoff * multiplier^(attempt - 1)，不超过maxBackoff，再减去随机抖动
+     */
+    long delayNanos(int attempt) {
+        double delay = Math.min(backoffNanos * Math.pow(multiplier, attempt - 1), maxBackoffNanos);
+        return (long) (delay * (1 - jitter * ThreadLocalRandom.current().nextDouble()));
+    }
+}
@@ -0,0 +1,36 @@
+package byx.aop;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+
+/**
+ * 按对象标识比较的弱引用键，用于以代理对象或增强对象为键的注册表
+ * 不调用对象的equals和hashCode（代理对象的这两个方法也会被拦截）
+ *
+ * @author byx
+ */
+final class WeakIdentityKey extends WeakReference<Object> {
+    private final int hash;
+
+    WeakIdentityKey(Object referent, ReferenceQueue<Object> queue) {
+        super(referent, queue);
+        this.hash = System.identityHashCode(referent);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof WeakIdentityKey)) {
+            return false;
+        }
+        Object referent = get();
+        return referent != null && referent == ((WeakIdentityKey) o).get();
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
@@ -0,0 +1,19 @@
+package byx.aop;
+
+/**
+ * 增强方法的织入方式
+ *
+ * @author byx
+ */
+public enum WeaveMode {
+    /**
+     * 用then把方法拦截器逐层连接成拦截器链
+     */
+    CHAIN,
+
+    /**
+     * 把作用于同一个目标方法的所有增强方法组合成一个方法句柄，调用时不再经过逐层的拦截器和TargetMethod
+     * 包含Around增强的目标方法仍然使用拦截器链
+     */
+    INLINE
+}
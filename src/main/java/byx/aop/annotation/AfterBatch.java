@@ -0,0 +1,34 @@
+package byx.aop.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 批量处理目标方法的调用记录
+ * 目标方法正常返回后，调用记录（方法、参数、返回值）被放入缓冲区，
+ * 缓冲区中的记录达到size条或者距上次处理超过interval时，以List&lt;Invocation&gt;为参数调用增强方法
+ * 增强方法在后台线程中调用，必须只有一个List类型的参数且返回void
+ *
+ * @author byx
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface AfterBatch {
+    /**
+     * 每批最多包含的记录数
+     */
+    int size() default 100;
+
+    /**
+     * 定时处理缓冲区的间隔，0表示只在记录数达到size时处理
+     */
+    long interval() default 1000;
+
+    /**
+     * 间隔的时间单位
+     */
+    TimeUnit unit() default TimeUnit.MILLISECONDS;
+}
@@ -13,4 +13,9 @@ import java.lang.annotation.Target;
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.METHOD)
 public @interface AfterThrowing {
+    /**
+     * 是否在其它线程中异步执行增强方法，目标方法不等待增强方法执行完成
+     * 异步执行的增强方法只能返回void
+     */
+    boolean async() default false;
 }
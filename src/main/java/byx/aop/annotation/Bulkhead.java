@@ -0,0 +1,38 @@
+package byx.aop.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 限制方法的并发调用数，超过上限的调用最多等待maxWait时间，仍然没有空闲名额时抛出BulkheadFullException
+ * 被注解的增强方法只用于声明，不会被调用，必须没有参数且返回void
+ * 并发上限按名称全局共享，同一个方法的所有代理对象共用一个上限，可以通过ByxAOP.bulkheads()在运行时调整
+ *
+ * @author byx
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Bulkhead {
+    /**
+     * 名称，默认为：目标类名.方法名(参数类型,...)
+     */
+    String value() default "";
+
+    /**
+     * 最大并发调用数
+     */
+    int maxConcurrent();
+
+    /**
+     * 没有空闲名额时的最长等待时间，0表示立即拒绝
+     */
+    long maxWait() default 0;
+
+    /**
+     * 等待时间的时间单位
+     */
+    TimeUnit unit() default TimeUnit.MILLISECONDS;
+}
@@ -0,0 +1,34 @@
+package byx.aop.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存方法返回值，参数相同的调用直接返回缓存的结果
+ * 被注解的增强方法只用于声明，不会被调用，必须没有参数且返回void
+ * 每个目标方法有各自的缓存。缓存属于代理对象而不是增强对象：每次调用getAopProxy都会创建新的缓存，
+ * 即使传入同一个增强对象；只有同一个AopProxyFactory创建的代理对象共用缓存
+ *
+ * @author byx
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Cacheable {
+    /**
+     * 最多缓存的结果数，超过时淘汰最近最少使用的结果，必须大于0
+     */
+    int maxSize() default 1000;
+
+    /**
+     * 缓存结果的有效期，0表示永不过期，不能为负数
+     */
+    long ttl() default 0;
+
+    /**
+     * 有效期的时间单位
+     */
+    TimeUnit unit() default TimeUnit.MILLISECONDS;
+}
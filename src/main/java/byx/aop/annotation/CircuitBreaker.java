@@ -0,0 +1,60 @@
+package byx.aop.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 熔断器：最近windowSize次调用的失败率达到failureRate时打开，打开期间的调用直接失败，不再调用目标方法
+ * 打开openDuration时间后允许一次试探调用，成功则关闭，失败则继续打开
+ * 被注解的增强方法只用于声明，不会被调用，必须没有参数且返回void
+ * 熔断器按名称全局共享，同一个方法的所有代理对象共用一个熔断器，可以通过ByxAOP.circuitBreakers()查看和重置
+ *
+ * @author byx
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface CircuitBreaker {
+    /**
+     * 名称，默认为：目标类名.方法名(参数类型,...)
+     */
+    String value() default "";
+
+    /**
+     * 滑动窗口包含的调用次数，向上取整为2的幂
+     */
+    int windowSize() default 100;
+
+    /**
+     * 窗口中至少有这么多次调用时才计算失败率
+     */
+    int minCalls() default 20;
+
+    /**
+     * 打开熔断器的失败率
+     */
+    double failureRate() default 0.5;
+
+    /**
+     * 熔断器打开后，经过多长时间允许试探调用
+     */
+    long openDuration() default 10000;
+
+    /**
+     * 时间单位
+     */
+    TimeUnit unit() default TimeUnit.MILLISECONDS;
+
+    /**
+     * 计为失败的异常类型，目标方法抛出其他异常时计为成功
+     */
+    Class<? extends Throwable>[] failOn() default Exception.class;
+
+    /**
+     * 熔断器打开时调用的降级方法名，降级方法与增强方法在同一个类中，参数与目标方法相同，返回值代替目标方法的返回值（与Replace增强相同）
+     * 为空时抛出CircuitBreakerOpenException
+     */
+    String fallback() default "";
+}
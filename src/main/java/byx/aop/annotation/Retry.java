@@ -0,0 +1,53 @@
+package byx.aop.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 目标方法抛出异常时重新调用，两次调用之间按指数退避等待，等待时间带有随机抖动
+ * 被注解的增强方法只用于声明，不会被调用，必须没有参数且返回void
+ * 目标方法返回CompletionStage时，异步失败也会重试，重试在共享的定时器中调度，不阻塞调用线程
+ *
+ * @author byx
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Retry {
+    /**
+     * 最多调用次数（包括第一次调用）
+     */
+    int maxAttempts() default 3;
+
+    /**
+     * 第一次重试前的等待时间
+     */
+    long backoff() default 100;
+
+    /**
+     * 每次重试后等待时间的倍数
+     */
+    double multiplier() default 2;
+
+    /**
+     * 等待时间的上限
+     */
+    long maxBackoff() default 10000;
+
+    /**
+     * 随机抖动的比例，实际等待时间在[(1 - jitter) * t, t]之间
+     */
+    double jitter() default 0.5;
+
+    /**
+     * 等待时间的时间单位
+     */
+    TimeUnit unit() default TimeUnit.MILLISECONDS;
+
+    /**
+     * 需要重试的异常类型，目标方法抛出其他异常时直接抛给调用者
+     */
+    Class<? extends Throwable>[] retryOn() default Exception.class;
+}
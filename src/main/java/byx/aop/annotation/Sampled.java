@@ -0,0 +1,21 @@
+package byx.aop.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 只在一部分调用中执行增强，可以与任意拦截类型注解一起使用
+ * 未被抽中的调用跳过该增强，直接执行拦截器链的下一层
+ *
+ * @author byx
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Sampled {
+    /**
+     * 执行增强的调用所占比例，取值范围为[0, 1]
+     */
+    double rate();
+}
@@ -0,0 +1,22 @@
+package byx.aop.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 记录方法的调用耗时
+ * 被注解的增强方法只用于声明，不会被调用，必须没有参数且返回void
+ * 耗时统计可以通过ByxAOP.metrics()获取
+ *
+ * @author byx
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Timed {
+    /**
+     * 统计名称，默认为：目标类名.方法名(参数类型,...)
+     */
+    String value() default "";
+}
@@ -0,0 +1,12 @@
+package byx.aop.exception;
+
+/**
+ * 被Bulkhead限制的方法没有空闲的并发名额
+ *
+ * @author byx
+ */
+public class BulkheadFullException extends ByxAOPException {
+    public BulkheadFullException(String name, boolean writableStackTrace) {
+        super("Bulkhead full: " + name, null, writableStackTrace);
+    }
+}
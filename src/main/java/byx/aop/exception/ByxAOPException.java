@@ -13,4 +13,11 @@ public class ByxAOPException extends RuntimeException {
     public ByxAOPException(String msg, Exception e) {
         super(msg, e);
     }
+
+    /**
+     * @param writableStackTrace 为false时不记录调用栈，也不记录被抑制的异常，创建异常的开销很小
+     */
+    public ByxAOPException(String msg, Throwable cause, boolean writableStackTrace) {
+        super(msg, cause, writableStackTrace, writableStackTrace);
+    }
 }
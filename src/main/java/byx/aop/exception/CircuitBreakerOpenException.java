@@ -0,0 +1,12 @@
+package byx.aop.exception;
+
+/**
+ * 熔断器处于打开状态，调用没有执行
+ *
+ * @author byx
+ */
+public class CircuitBreakerOpenException extends ByxAOPException {
+    public CircuitBreakerOpenException(String name, boolean writableStackTrace) {
+        super("Circuit breaker open: " + name, null, writableStackTrace);
+    }
+}
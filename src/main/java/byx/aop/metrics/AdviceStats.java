@@ -0,0 +1,79 @@
+package byx.aop.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 一个增强方法的调用统计
+ * 耗时只包含增强方法自身，不包含它调用的内层拦截器和目标方法
+ *
+ * @author byx
+ */
+public class AdviceStats {
+    private final String advice;
+    private final String type;
+    private final LongAdder invocations = new LongAdder();
+    private final LongAdder exceptions = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+
+    public AdviceStats(String advice, String type) {
+        this.advice = advice;
+        this.type = type;
+    }
+
+    /**
+     * 记录一次调用
+     * @param nanos 耗时（纳秒）
+     * @param failed 是否抛出了异常
+     */
+    public void record(long nanos, boolean failed) {
+        invocations.increment();
+        this.nanos.add(nanos);
+        if (failed) {
+            exceptions.increment();
+        }
+    }
+
+    void add(AdviceStats other) {
+        invocations.add(other.getInvocations());
+        exceptions.add(other.getExceptions());
+        nanos.add(other.getNanos());
+    }
+
+    void reset() {
+        invocations.reset();
+        exceptions.reset();
+        nanos.reset();
+    }
+
+    /**
+     * 增强方法，格式为：增强类全名.方法名(参数类型)
+     */
+    public String getAdvice() {
+        return advice;
+    }
+
+    /**
+     * 拦截类型，如Before、Around
+     */
+    public String getType() {
+        return type;
+    }
+
+    public long getInvocations() {
+        return invocations.sum();
+    }
+
+    public long getExceptions() {
+        return exceptions.sum();
+    }
+
+    public long getNanos() {
+        return nanos.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s @%s invocations=%d exceptions=%d nanos=%d",
+                advice, type, getInvocations(), getExceptions(), getNanos());
+    }
+}
@@ -0,0 +1,79 @@
+package byx.aop.metrics;
+
+import byx.aop.exception.ByxAOPException;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 一个AopProxyFactory创建的所有代理对象的调用统计
+ * 所有计数器都是LongAdder，多个线程同时记录时没有竞争
+ *
+ * @author byx
+ */
+public class AopStats implements AopStatsMXBean {
+    private final ConcurrentMap<String, MethodStats> methods = new ConcurrentHashMap<>();
+
+    /**
+     * 获取指定方法的统计，不存在时创建
+     */
+    public MethodStats method(String method) {
+        return methods.computeIfAbsent(method, MethodStats::new);
+    }
+
+    /**
+     * 获取指定方法的统计，不存在时返回null
+     * @param method 方法的标识，格式为：类名.方法名(参数类型,...)
+     */
+    public MethodStats getMethod(String method) {
+        return methods.get(method);
+    }
+
+    @Override
+    public List<MethodStats> getMethods() {
+        List<MethodStats> list = new ArrayList<>(methods.values());
+        list.sort(Comparator.comparing(MethodStats::getMethod));
+        return list;
+    }
+
+    @Override
+    public List<AdviceStats> getAdvices() {
+        Map<String, AdviceStats> merged = new TreeMap<>();
+        for (MethodStats m : methods.values()) {
+            for (AdviceStats a : m.getAdvices()) {
+                merged.computeIfAbsent(a.getAdvice() + "@" + a.getType(), k -> new AdviceStats(a.getAdvice(), a.getType()))
+                        .add(a);
+            }
+        }
+        return new ArrayList<>(merged.values());
+    }
+
+    @Override
+    public void reset() {
+        methods.values().forEach(MethodStats::reset);
+    }
+
+    /**
+     * 注册到平台MBeanServer，ObjectName为byx.aop:type=AopStats,name=指定名称
+     */
+    public ObjectName registerMBean(String name) {
+        try {
+            ObjectName objectName = new ObjectName("byx.aop", new Hashtable<>(objectNameProperties(name)));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            return objectName;
+        } catch (JMException e) {
+            throw new ByxAOPException("Cannot register MBean: " + name, e);
+        }
+    }
+
+    private static Map<String, String> objectNameProperties(String name) {
+        Map<String, String> properties = new HashMap<>();
+        properties.put("type", "AopStats");
+        properties.put("name", ObjectName.quote(name));
+        return properties;
+    }
+}
@@ -0,0 +1,25 @@
+package byx.aop.metrics;
+
+import java.util.List;
+
+/**
+ * 通过JMX查看的调用统计
+ *
+ * @author byx
+ */
+public interface AopStatsMXBean {
+    /**
+     * 每个被代理方法的统计
+     */
+    List<MethodStats> getMethods();
+
+    /**
+     * 每个增强方法在所有被代理方法上的统计之和
+     */
+    List<AdviceStats> getAdvices();
+
+    /**
+     * 清空统计
+     */
+    void reset();
+}
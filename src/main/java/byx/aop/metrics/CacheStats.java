@@ -0,0 +1,37 @@
+package byx.aop.metrics;
+
+/**
+ * 缓存命中统计的快照
+ *
+ * @author byx
+ */
+public class CacheStats {
+    private final long hits;
+    private final long misses;
+
+    public CacheStats(long hits, long misses) {
+        this.hits = hits;
+        this.misses = misses;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * 命中率，没有任何查询时为0
+     */
+    public double getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("hits=%d misses=%d hitRate=%.4f", hits, misses, getHitRate());
+    }
+}
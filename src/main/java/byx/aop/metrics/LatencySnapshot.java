@@ -0,0 +1,82 @@
+package byx.aop.metrics;
+
+/**
+ * 耗时直方图在某一时刻的快照，所有时间单位都是纳秒
+ *
+ * @author byx
+ */
+public class LatencySnapshot {
+    private final long[] counts;
+    private final long count;
+    private final long total;
+    private final long max;
+
+    LatencySnapshot(long[] counts, long total, long max) {
+        this.counts = counts;
+        long c = 0;
+        for (long n : counts) {
+            c += n;
+        }
+        this.count = c;
+        this.total = total;
+        this.max = max;
+    }
+
+    /**
+     * 调用次数
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * 平均耗时
+     */
+    public double getMean() {
+        return count == 0 ? 0 : (double) total / count;
+    }
+
+    /**
+     * 最大耗时
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * 获取百分位耗时，返回值所在桶的上界，相对误差不超过1/32
+     * @param percentile 百分位，取值范围为[0, 100]
+     */
+    public long getPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; ++i) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(LatencyHistogram.upperBound(i), max);
+            }
+        }
+        return max;
+    }
+
+    public long getP50() {
+        return getPercentile(50);
+    }
+
+    public long getP99() {
+        return getPercentile(99);
+    }
+
+    public long getP999() {
+        return getPercentile(99.9);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d, mean=%.1fns, p50=%dns, p99=%dns, p999=%dns, max=%dns",
+                count, getMean(), getP50(), getP99(), getP999(), max);
+    }
+}
@@ -0,0 +1,110 @@
+package byx.aop.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 一个被代理方法的调用统计
+ * 总耗时分为目标方法的耗时和拦截器链的耗时两部分
+ *
+ * @author byx
+ */
+public class MethodStats {
+    private final String method;
+    private final LongAdder invocations = new LongAdder();
+    private final LongAdder exceptions = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAdder targetNanos = new LongAdder();
+    private final List<AdviceStats> advices = new CopyOnWriteArrayList<>();
+
+    public MethodStats(String method) {
+        this.method = method;
+    }
+
+    /**
+     * 获取作用于该方法的增强方法的统计，不存在时创建
+     */
+    public synchronized AdviceStats advice(String advice, String type) {
+        for (AdviceStats s : advices) {
+            if (s.getAdvice().equals(advice) && s.getType().equals(type)) {
+                return s;
+            }
+        }
+        AdviceStats s = new AdviceStats(advice, type);
+        advices.add(s);
+        return s;
+    }
+
+    /**
+     * 记录一次调用
+     * @param nanos 总耗时（纳秒）
+     * @param failed 是否抛出了异常
+     */
+    public void record(long nanos, boolean failed) {
+        invocations.increment();
+        totalNanos.add(nanos);
+        if (failed) {
+            exceptions.increment();
+        }
+    }
+
+    /**
+     * 记录一次目标方法的耗时
+     */
+    public void recordTarget(long nanos) {
+        targetNanos.add(nanos);
+    }
+
+    void reset() {
+        invocations.reset();
+        exceptions.reset();
+        totalNanos.reset();
+        targetNanos.reset();
+        advices.forEach(AdviceStats::reset);
+    }
+
+    /**
+     * 方法的标识，格式为：类名.方法名(参数类型,...)
+     */
+    public String getMethod() {
+        return method;
+    }
+
+    public long getInvocations() {
+        return invocations.sum();
+    }
+
+    public long getExceptions() {
+        return exceptions.sum();
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    public long getTargetNanos() {
+        return targetNanos.sum();
+    }
+
+    /**
+     * 拦截器链的耗时，即总耗时减去目标方法的耗时
+     */
+    public long getAdviceNanos() {
+        return getTotalNanos() - getTargetNanos();
+    }
+
+    /**
+     * 作用于该方法的增强方法的统计，按从外到内的顺序排列
+     */
+    public List<AdviceStats> getAdvices() {
+        return new ArrayList<>(advices);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s invocations=%d exceptions=%d totalNanos=%d targetNanos=%d adviceNanos=%d",
+                method, getInvocations(), getExceptions(), getTotalNanos(), getTargetNanos(), getAdviceNanos());
+    }
+}
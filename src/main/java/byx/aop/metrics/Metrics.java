@@ -0,0 +1,63 @@
+package byx.aop.metrics;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 耗时统计的注册表
+ *
+ * @author byx
+ */
+public class Metrics {
+    private static final Metrics GLOBAL = new Metrics();
+
+    private final ConcurrentMap<String, LatencyHistogram> timers = new ConcurrentHashMap<>();
+
+    /**
+     * 全局注册表，@Timed增强的统计结果都记录在这里
+     */
+    public static Metrics global() {
+        return GLOBAL;
+    }
+
+    /**
+     * 获取指定名称的直方图，不存在时创建
+     */
+    public LatencyHistogram timer(String name) {
+        return timers.computeIfAbsent(name, k -> new LatencyHistogram());
+    }
+
+    /**
+     * 所有统计名称
+     */
+    public Set<String> names() {
+        return timers.keySet();
+    }
+
+    /**
+     * 获取指定名称的统计快照，不存在时返回null
+     */
+    public LatencySnapshot snapshot(String name) {
+        LatencyHistogram histogram = timers.get(name);
+        return histogram == null ? null : histogram.snapshot();
+    }
+
+    /**
+     * 获取所有统计快照，按名称排序
+     */
+    public Map<String, LatencySnapshot> snapshots() {
+        Map<String, LatencySnapshot> map = new TreeMap<>();
+        timers.forEach((name, histogram) -> map.put(name, histogram.snapshot()));
+        return map;
+    }
+
+    /**
+     * 清空所有统计结果
+     */
+    public void reset() {
+        timers.values().forEach(LatencyHistogram::reset);
+    }
+}
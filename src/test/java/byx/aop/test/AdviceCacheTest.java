@@ -0,0 +1,52 @@
+package byx.aop.test;
+
+import byx.aop.annotation.Before;
+import byx.aop.annotation.Filter;
+import byx.aop.exception.IllegalMethodSignatureException;
+import org.junit.jupiter.api.Test;
+
+import static byx.aop.ByxAOP.getAopProxy;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdviceCacheTest {
+    public static class A {
+        public String f(String s) {
+            return s;
+        }
+    }
+
+    public static class Advice {
+        private final String suffix;
+
+        public Advice(String suffix) {
+            this.suffix = suffix;
+        }
+
+        @Before
+        @Filter(name = "f")
+        public String[] beforeF(String s) {
+            return new String[]{s + suffix};
+        }
+    }
+
+    public static class IllegalAdvice {
+        @Before
+        public int beforeF(String s) {
+            return 0;
+        }
+    }
+
+    @Test
+    public void testBindToAdviceInstance() {
+        A a1 = getAopProxy(new A(), new Advice("1"));
+        A a2 = getAopProxy(new A(), new Advice("2"));
+        assertEquals("x1", a1.f("x"));
+        assertEquals("x2", a2.f("x"));
+    }
+
+    @Test
+    public void testIllegalAdviceNotCached() {
+        assertThrows(IllegalMethodSignatureException.class, () -> getAopProxy(new A(), new IllegalAdvice()));
+        assertThrows(IllegalMethodSignatureException.class, () -> getAopProxy(new A(), new IllegalAdvice()));
+    }
+}
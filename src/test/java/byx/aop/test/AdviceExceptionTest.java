@@ -0,0 +1,64 @@
+package byx.aop.test;
+
+import byx.aop.AopOptions;
+import byx.aop.WeaveMode;
+import byx.aop.annotation.Before;
+import byx.aop.exception.ByxAOPException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static byx.aop.ByxAOP.getAopProxy;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdviceExceptionTest {
+    public static class A {
+        public String f(String s) {
+            return s;
+        }
+    }
+
+    public static class Advice {
+        @Before
+        public void check(String s) throws IOException {
+            if (s == null) {
+                throw new IOException("null");
+            }
+        }
+    }
+
+    @Test
+    public void testWrap() {
+        for (WeaveMode mode : WeaveMode.values()) {
+            A a = getAopProxy(new A(), new AopOptions().weaveMode(mode), new Advice());
+            ByxAOPException e = assertThrows(ByxAOPException.class, () -> a.f(null));
+            assertTrue(e.getCause() instanceof IOException);
+            assertTrue(e.getStackTrace().length > 0);
+            e.addSuppressed(new IllegalStateException());
+            assertEquals(1, e.getSuppressed().length);
+            assertEquals("a", a.f("a"));
+        }
+    }
+
+    @Test
+    public void testStackless() {
+        for (WeaveMode mode : WeaveMode.values()) {
+            A a = getAopProxy(new A(), new AopOptions().weaveMode(mode).stacklessExceptions(true), new Advice());
+            ByxAOPException e = assertThrows(ByxAOPException.class, () -> a.f(null));
+            assertTrue(e.getCause() instanceof IOException);
+            assertEquals(0, e.getStackTrace().length);
+            e.addSuppressed(new IllegalStateException());
+            assertEquals(0, e.getSuppressed().length);
+        }
+    }
+
+    @Test
+    public void testRethrow() {
+        for (WeaveMode mode : WeaveMode.values()) {
+            A a = getAopProxy(new A(), new AopOptions().weaveMode(mode).rethrowCheckedExceptions(true), new Advice());
+            Throwable t = assertThrows(Throwable.class, () -> a.f(null));
+            assertTrue(t instanceof IOException);
+            assertEquals("null", t.getMessage());
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package byx.aop.test;
+
+import byx.aop.Invocation;
+import byx.aop.annotation.AfterBatch;
+import byx.aop.annotation.Filter;
+import byx.aop.exception.IllegalMethodSignatureException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static byx.aop.ByxAOP.getAopProxy;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AfterBatchTest {
+    public static class A {
+        public int f(int n) {
+            return n + 1;
+        }
+
+        public String g(String s) {
+            return s;
+        }
+    }
+
+    public static class Advice1 {
+        private final List<List<Invocation>> batches = new CopyOnWriteArrayList<>();
+        private final CountDownLatch latch = new CountDownLatch(6);
+
+        @AfterBatch(size = 3, interval = 0)
+        @Filter(name = "f")
+        public void flush(List<Invocation> batch) {
+            batches.add(batch);
+            batch.forEach(invocation -> latch.countDown());
+        }
+    }
+
+    @Test
+    public void test1() throws InterruptedException {
+        Advice1 advice = new Advice1();
+        A a = getAopProxy(new A(), advice);
+
+        for (int i = 0; i < 6; ++i) {
+            assertEquals(i + 1, a.f(i));
+            assertEquals("x", a.g("x"));
+        }
+
+        assertTrue(advice.latch.await(5, TimeUnit.SECONDS));
+        int n = 0;
+        for (List<Invocation> batch : advice.batches) {
+            assertTrue(batch.size() <= 3);
+            for (Invocation invocation : batch) {
+                assertEquals("f", invocation.getMethodName());
+                assertArrayEquals(new Class<?>[]{int.class}, invocation.getParameterTypes());
+                assertArrayEquals(new Object[]{n}, invocation.getArgs());
+                assertEquals(n + 1, invocation.getReturnValue());
+                n++;
+            }
+        }
+        assertEquals(6, n);
+    }
+
+    public static class Advice2 {
+        private volatile List<Invocation> batch;
+        private final CountDownLatch latch = new CountDownLatch(1);
+
+        @AfterBatch(size = 100, interval = 20)
+        public void flush(List<Invocation> batch) {
+            this.batch = batch;
+            latch.countDown();
+        }
+    }
+
+    @Test
+    public void test2() throws InterruptedException {
+        Advice2 advice = new Advice2();
+        A a = getAopProxy(new A(), advice);
+
+        assertEquals("hello", a.g("hello"));
+
+        assertTrue(advice.latch.await(5, TimeUnit.SECONDS));
+        assertEquals(1, advice.batch.size());
+        assertEquals("g", advice.batch.get(0).getMethodName());
+        assertEquals("hello", advice.batch.get(0).getReturnValue());
+    }
+
+    public static class Advice4 {
+        private final List<List<Invocation>> batches = new CopyOnWriteArrayList<>();
+        private final CountDownLatch latch = new CountDownLatch(50);
+
+        @AfterBatch(size = 100, interval = 200)
+        @Filter(name = "f")
+        public void flush(List<Invocation> batch) {
+            batches.add(batch);
+            batch.forEach(invocation -> latch.countDown());
+        }
+    }
+
+    @Test
+    public void test4() throws InterruptedException {
+        Advice4 advice = new Advice4();
+        for (int i = 0; i < 50; ++i) {
+            A a = getAopProxy(new A(), advice);
+            a.f(i);
+        }
+
+        // 代理对象在处理记录之前被回收，记录不会丢失，多个代理对象的记录合并成批
+        for (int i = 0; i < 5; ++i) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertTrue(advice.latch.await(5, TimeUnit.SECONDS));
+        assertTrue(advice.batches.size() < 50);
+        assertEquals(50, advice.batches.stream().mapToInt(List::size).sum());
+    }
+
+    public static class Advice3 {
+        @AfterBatch
+        public void flush(Invocation invocation) {
+        }
+    }
+
+    @Test
+    public void test3() {
+        assertThrows(IllegalMethodSignatureException.class, () -> getAopProxy(new A(), new Advice3()));
+    }
+}
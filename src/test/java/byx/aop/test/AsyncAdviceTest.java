@@ -0,0 +1,116 @@
+package byx.aop.test;
+
+import byx.aop.AopOptions;
+import byx.aop.AsyncExecutors;
+import byx.aop.RejectPolicy;
+import byx.aop.annotation.After;
+import byx.aop.annotation.AfterThrowing;
+import byx.aop.exception.IllegalMethodSignatureException;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static byx.aop.ByxAOP.getAopProxy;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AsyncAdviceTest {
+    public static class A {
+        public int f(int n) {
+            return n * 2;
+        }
+
+        public void g() {
+            throw new IllegalStateException("g");
+        }
+    }
+
+    public static class Advice1 {
+        private final CountDownLatch latch = new CountDownLatch(2);
+        private volatile int returnValue;
+        private volatile Thread afterThread;
+        private volatile Throwable exception;
+
+        @After(async = true)
+        public void after(int ret) {
+            returnValue = ret;
+            afterThread = Thread.currentThread();
+            latch.countDown();
+        }
+
+        @AfterThrowing(async = true)
+        public void afterThrowing(Throwable t) {
+            exception = t;
+            latch.countDown();
+        }
+    }
+
+    @Test
+    public void test1() throws InterruptedException {
+        Advice1 advice = new Advice1();
+        A a = getAopProxy(new A(), advice);
+
+        assertEquals(6, a.f(3));
+        IllegalStateException e = assertThrows(IllegalStateException.class, a::g);
+        assertEquals("g", e.getMessage());
+
+        assertTrue(advice.latch.await(5, TimeUnit.SECONDS));
+        assertEquals(6, advice.returnValue);
+        assertNotSame(Thread.currentThread(), advice.afterThread);
+        assertSame(e, advice.exception);
+    }
+
+    public static class Advice2 {
+        @After(async = true)
+        public int after(int ret) {
+            return ret;
+        }
+    }
+
+    @Test
+    public void test2() {
+        assertThrows(IllegalMethodSignatureException.class, () -> getAopProxy(new A(), new Advice2()));
+    }
+
+    public static class Advice3 {
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private volatile int count = 0;
+
+        @After(async = true)
+        public void after() throws InterruptedException {
+            count++;
+            started.countDown();
+            release.await();
+        }
+    }
+
+    @Test
+    public void test3() throws InterruptedException {
+        Executor executor = AsyncExecutors.bounded(1, RejectPolicy.DISCARD);
+        Advice3 advice = new Advice3();
+        A a = getAopProxy(new A(), new AopOptions().asyncExecutor(executor), advice);
+
+        assertEquals(2, a.f(1));
+        assertTrue(advice.started.await(5, TimeUnit.SECONDS));
+        assertEquals(4, a.f(2));
+        assertEquals(6, a.f(3));
+        assertEquals(2, AsyncExecutors.discardedCount(executor));
+        assertEquals(1, advice.count);
+        advice.release.countDown();
+    }
+
+    @Test
+    public void test4() throws InterruptedException {
+        Executor executor = AsyncExecutors.bounded(1, RejectPolicy.ABORT);
+        Advice3 advice = new Advice3();
+        A a = getAopProxy(new A(), new AopOptions().asyncExecutor(executor), advice);
+
+        assertEquals(2, a.f(1));
+        assertTrue(advice.started.await(5, TimeUnit.SECONDS));
+        assertThrows(RejectedExecutionException.class, () -> a.f(2));
+        advice.release.countDown();
+    }
+}
@@ -39,6 +39,22 @@ public class BeforeTest {
         public String f6(String a, String b) {
             return a + " " + b;
         }
+
+        public String f7(long a, double b, boolean c, char d) {
+            return a + " " + b + " " + c + " " + d;
+        }
+
+        public long f8(long a, long b) {
+            return a + b;
+        }
+
+        public double f9(double a) {
+            return a;
+        }
+
+        public boolean f10(boolean a) {
+            return a;
+        }
     }
 
     public static class Advice {
@@ -79,6 +95,38 @@ public class BeforeTest {
         }
     }
 
+    public static class Advice5 {
+        @Before
+        @Filter(name = "f5")
+        public Object[] g5(String a) {
+            return new Object[]{a + "!"};
+        }
+
+        @Before
+        @Filter(name = "f7")
+        public Object[] g7(long a, double b, boolean c, char d) {
+            return new Object[]{a + 1, b * 2, !c, (char) (d + 1)};
+        }
+
+        @Before
+        @Filter(name = "f8")
+        public long[] g8(long a, long b) {
+            return new long[]{a * 2, b * 2};
+        }
+
+        @Before
+        @Filter(name = "f9")
+        public double[] g9(double a) {
+            return new double[]{a / 2};
+        }
+
+        @Before
+        @Filter(name = "f10")
+        public boolean[] g10(boolean a) {
+            return new boolean[]{!a};
+        }
+    }
+
     public static class Advice2 {
         @Before
         @Filter(name = "f2")
@@ -151,4 +199,14 @@ public class BeforeTest {
         A a = getAopProxy(new A(), new Advice4());
         assertEquals("hello 100", a.f2(100));
     }
+
+    @Test
+    public void test5() {
+        A a = getAopProxy(new A(), new Advice5());
+        assertEquals("abc! hello", a.f5("abc"));
+        assertEquals("2 3.0 false b", a.f7(1, 1.5, true, 'a'));
+        assertEquals(30L, a.f8(5, 10));
+        assertEquals(1.25, a.f9(2.5), 1e-9);
+        assertFalse(a.f10(true));
+    }
 }
@@ -0,0 +1,162 @@
+package byx.aop.test;
+
+import byx.aop.ByxAOP;
+import byx.aop.ConcurrencyLimiter;
+import byx.aop.annotation.Bulkhead;
+import byx.aop.annotation.Filter;
+import byx.aop.exception.BulkheadFullException;
+import byx.aop.exception.ByxAOPException;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static byx.aop.ByxAOP.getAopProxy;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BulkheadTest {
+    public static class A {
+        private final CountDownLatch entered;
+        private final CountDownLatch release;
+
+        public A() {
+            this(new CountDownLatch(0), new CountDownLatch(0));
+        }
+
+        public A(CountDownLatch entered, CountDownLatch release) {
+            this.entered = entered;
+            this.release = release;
+        }
+
+        public int f(int n) {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            return n;
+        }
+
+        public CompletableFuture<Integer> g(CompletableFuture<Integer> future) {
+            return future;
+        }
+    }
+
+    public static class Advice1 {
+        @Bulkhead(value = "BulkheadTest.f", maxConcurrent = 2)
+        @Filter(name = "f")
+        public void bulkheadF() {
+        }
+
+        @Bulkhead(value = "BulkheadTest.g", maxConcurrent = 1)
+        @Filter(name = "g")
+        public void bulkheadG() {
+        }
+    }
+
+    @Test
+    public void test1() throws Exception {
+        CountDownLatch entered = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        // 不同的代理对象和增强对象共用同一个并发上限
+        A a1 = getAopProxy(new A(entered, release), new Advice1());
+        A a2 = getAopProxy(new A(entered, release), new Advice1());
+
+        Thread t1 = new Thread(() -> a1.f(1));
+        Thread t2 = new Thread(() -> a2.f(2));
+        t1.start();
+        t2.start();
+        entered.await();
+
+        ConcurrencyLimiter limiter = ByxAOP.bulkheads().get("BulkheadTest.f");
+        assertEquals(2, limiter.getActive());
+        assertThrows(BulkheadFullException.class, () -> a1.f(3));
+        assertEquals(1, limiter.getRejected());
+
+        // 运行时调整上限
+        limiter.setMaxConcurrent(3);
+        CountDownLatch entered2 = new CountDownLatch(1);
+        A a3 = getAopProxy(new A(entered2, release), new Advice1());
+        Thread t3 = new Thread(() -> a3.f(3));
+        t3.start();
+        entered2.await();
+        assertEquals(3, limiter.getActive());
+
+        release.countDown();
+        t1.join();
+        t2.join();
+        t3.join();
+        assertEquals(0, limiter.getActive());
+        assertEquals(5, a1.f(5));
+    }
+
+    @Test
+    public void test2() {
+        A a = getAopProxy(new A(), new Advice1());
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        a.g(future);
+
+        // 名额在CompletionStage完成时才释放
+        assertThrows(BulkheadFullException.class, () -> a.g(new CompletableFuture<>()));
+        future.complete(1);
+        CompletableFuture<Integer> done = CompletableFuture.completedFuture(2);
+        assertSame(done, a.g(done));
+        assertEquals(0, ByxAOP.bulkheads().get("BulkheadTest.g").getActive());
+    }
+
+    public static class Advice2 {
+        @Bulkhead(value = "BulkheadTest.f3", maxConcurrent = 2, maxWait = 5000)
+        @Filter(name = "f")
+        public void bulkhead() {
+        }
+    }
+
+    private static Thread call(A a, int n) {
+        Thread t = new Thread(() -> a.f(n));
+        t.start();
+        return t;
+    }
+
+    @Test
+    public void test3() throws Exception {
+        // 两个名额几乎同时释放时，两个等待的线程都要被唤醒
+        for (int round = 0; round < 20; ++round) {
+            CountDownLatch entered = new CountDownLatch(2);
+            CountDownLatch release = new CountDownLatch(1);
+            Thread h1 = call(getAopProxy(new A(entered, release), new Advice2()), 1);
+            Thread h2 = call(getAopProxy(new A(entered, release), new Advice2()), 2);
+            entered.await();
+
+            CountDownLatch waitersEntered = new CountDownLatch(2);
+            CountDownLatch waitersRelease = new CountDownLatch(1);
+            Thread w1 = call(getAopProxy(new A(waitersEntered, waitersRelease), new Advice2()), 3);
+            Thread w2 = call(getAopProxy(new A(waitersEntered, waitersRelease), new Advice2()), 4);
+            while (w1.getState() != Thread.State.TIMED_WAITING || w2.getState() != Thread.State.TIMED_WAITING) {
+                Thread.sleep(1);
+            }
+
+            release.countDown();
+            assertTrue(waitersEntered.await(2, TimeUnit.SECONDS));
+            waitersRelease.countDown();
+            for (Thread t : new Thread[]{h1, h2, w1, w2}) {
+                t.join();
+            }
+        }
+        assertEquals(0, ByxAOP.bulkheads().get("BulkheadTest.f3").getRejected());
+    }
+
+    public static class Advice3 {
+        @Bulkhead(maxConcurrent = -1)
+        @Filter(name = "f")
+        public void bulkhead() {
+        }
+    }
+
+    @Test
+    public void test4() {
+        // 不合法的参数在创建代理时就被拒绝
+        assertThrows(ByxAOPException.class, () -> getAopProxy(new A(), new Advice3()));
+    }
+}
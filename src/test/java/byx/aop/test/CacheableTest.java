@@ -0,0 +1,144 @@
+package byx.aop.test;
+
+import byx.aop.annotation.Cacheable;
+import byx.aop.annotation.Filter;
+import byx.aop.exception.ByxAOPException;
+import byx.aop.exception.IllegalMethodSignatureException;
+import org.junit.jupiter.api.Test;
+
+import static byx.aop.ByxAOP.getAopProxy;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CacheableTest {
+    public static class A {
+        private int count = 0;
+
+        public int f(int n) {
+            count++;
+            return n * 2;
+        }
+
+        public String g(String a, int[] b) {
+            count++;
+            return b.length == 0 ? null : a + b[0];
+        }
+
+        public int h(int n) {
+            count++;
+            return n;
+        }
+
+        public long now() {
+            count++;
+            return System.nanoTime();
+        }
+    }
+
+    public static class Advice {
+        @Cacheable
+        @Filter(name = "f")
+        public void cacheF() {
+        }
+
+        @Cacheable
+        @Filter(name = "g")
+        public void cacheG() {
+        }
+
+        @Cacheable(maxSize = 2)
+        @Filter(name = "h")
+        public void cacheH() {
+        }
+
+        @Cacheable(ttl = 20)
+        @Filter(name = "now")
+        public void cacheNow() {
+        }
+    }
+
+    public static class IllegalAdvice {
+        @Cacheable
+        public int cacheAll() {
+            return 0;
+        }
+    }
+
+    @Test
+    public void testCache() {
+        A target = new A();
+        A a = getAopProxy(target, new Advice());
+
+        assertEquals(2, a.f(1));
+        assertEquals(2, a.f(1));
+        assertEquals(4, a.f(2));
+        assertEquals(2, target.count);
+
+        target.count = 0;
+        assertEquals("x1", a.g("x", new int[]{1}));
+        assertEquals("x1", a.g("x", new int[]{1}));
+        assertNull(a.g("x", new int[0]));
+        assertNull(a.g("x", new int[0]));
+        assertEquals(2, target.count);
+    }
+
+    @Test
+    public void testMaxSize() {
+        A target = new A();
+        A a = getAopProxy(target, new Advice());
+
+        a.h(1);
+        a.h(2);
+        a.h(3);
+        assertEquals(3, target.count);
+        a.h(1);
+        assertEquals(4, target.count);
+    }
+
+    @Test
+    public void testTtl() throws InterruptedException {
+        A target = new A();
+        A a = getAopProxy(target, new Advice());
+
+        long t = a.now();
+        assertEquals(t, a.now());
+        Thread.sleep(50);
+        assertNotEquals(t, a.now());
+        assertEquals(2, target.count);
+    }
+
+    @Test
+    public void testIllegalSignature() {
+        assertThrows(IllegalMethodSignatureException.class, () -> getAopProxy(new A(), new IllegalAdvice()));
+    }
+
+    public static class IllegalSizeAdvice {
+        @Cacheable(maxSize = 0)
+        public void cache() {
+        }
+    }
+
+    public static class IllegalTtlAdvice {
+        @Cacheable(ttl = -1)
+        public void cache() {
+        }
+    }
+
+    @Test
+    public void testIllegalSettings() {
+        assertThrows(ByxAOPException.class, () -> getAopProxy(new A(), new IllegalSizeAdvice()));
+        assertThrows(ByxAOPException.class, () -> getAopProxy(new A(), new IllegalTtlAdvice()));
+    }
+
+    @Test
+    public void testCachePerProxy() {
+        Advice advice = new Advice();
+        A target = new A();
+        A a1 = getAopProxy(target, advice);
+        A a2 = getAopProxy(target, advice);
+
+        a1.f(1);
+        a1.f(1);
+        a2.f(1);
+        assertEquals(2, target.count);
+    }
+}
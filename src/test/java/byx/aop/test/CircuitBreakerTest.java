@@ -0,0 +1,264 @@
+package byx.aop.test;
+
+import byx.aop.ByxAOP;
+import byx.aop.CircuitState;
+import byx.aop.annotation.CircuitBreaker;
+import byx.aop.annotation.Filter;
+import byx.aop.exception.ByxAOPException;
+import byx.aop.exception.CircuitBreakerOpenException;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static byx.aop.ByxAOP.getAopProxy;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CircuitBreakerTest {
+    public static class A {
+        private boolean fail = false;
+        private int count = 0;
+
+        public String f(String s) {
+            count++;
+            if (fail) {
+                throw new IllegalStateException();
+            }
+            return s;
+        }
+
+        public String g(String s) {
+            count++;
+            throw new IllegalArgumentException();
+        }
+
+        public String k(CountDownLatch latch) throws InterruptedException {
+            latch.await();
+            throw new IllegalStateException();
+        }
+
+        public void setFail(boolean fail) {
+            this.fail = fail;
+        }
+
+        public int getCount() {
+            return count;
+        }
+    }
+
+    public static class Advice1 {
+        @CircuitBreaker(value = "CircuitBreakerTest.f", windowSize = 8, minCalls = 4, failureRate = 0.5,
+                openDuration = 50, fallback = "fallbackF")
+        @Filter(name = "f")
+        public void breakerF() {
+        }
+
+        public String fallbackF(String s) {
+            return "fallback " + s;
+        }
+
+        @CircuitBreaker(value = "CircuitBreakerTest.g", windowSize = 4, minCalls = 2,
+                failOn = IllegalStateException.class)
+        @Filter(name = "g")
+        public void breakerG() {
+        }
+    }
+
+    @Test
+    public void test1() throws Exception {
+        A a = getAopProxy(new A(), new Advice1());
+        for (int i = 0; i < 4; ++i) {
+            assertEquals("hello", a.f("hello"));
+        }
+        CircuitState state = ByxAOP.circuitBreakers().get("CircuitBreakerTest.f");
+        assertEquals(CircuitState.State.CLOSED, state.getState());
+
+        a.setFail(true);
+        for (int i = 0; i < 4; ++i) {
+            assertThrows(IllegalStateException.class, () -> a.f("hello"));
+        }
+        assertEquals(CircuitState.State.OPEN, state.getState());
+
+        // 打开期间不调用目标方法，直接调用降级方法
+        int count = a.getCount();
+        assertEquals("fallback hello", a.f("hello"));
+        assertEquals(count, a.getCount());
+
+        // 试探调用失败，继续打开
+        Thread.sleep(60);
+        assertThrows(IllegalStateException.class, () -> a.f("hello"));
+        assertEquals(CircuitState.State.OPEN, state.getState());
+        assertEquals("fallback hello", a.f("hello"));
+
+        // 试探调用成功，关闭熔断器
+        Thread.sleep(60);
+        a.setFail(false);
+        assertEquals("hello", a.f("hello"));
+        assertEquals(CircuitState.State.CLOSED, state.getState());
+        assertEquals(0.0, state.getFailureRate());
+    }
+
+    @Test
+    public void test2() {
+        A a = getAopProxy(new A(), new Advice1());
+        // 不在failOn中的异常不计为失败
+        for (int i = 0; i < 10; ++i) {
+            assertThrows(IllegalArgumentException.class, () -> a.g("hello"));
+        }
+        CircuitState state = ByxAOP.circuitBreakers().get("CircuitBreakerTest.g");
+        assertEquals(CircuitState.State.CLOSED, state.getState());
+        assertEquals(0.0, state.getFailureRate());
+    }
+
+    public static class Advice2 {
+        @CircuitBreaker(value = "CircuitBreakerTest.h", windowSize = 2, minCalls = 1)
+        public void breaker() {
+        }
+    }
+
+    @Test
+    public void test3() {
+        A a = getAopProxy(new A(), new Advice2());
+        a.setFail(true);
+        assertThrows(IllegalStateException.class, () -> a.f("hello"));
+        assertThrows(CircuitBreakerOpenException.class, () -> a.f("hello"));
+        ByxAOP.circuitBreakers().get("CircuitBreakerTest.h").reset();
+        assertThrows(IllegalStateException.class, () -> a.f("hello"));
+    }
+
+    /**
+     * 非public的增强类，降级方法有多个重载
+     */
+    static class Advice3 {
+        @CircuitBreaker(value = "CircuitBreakerTest.i", windowSize = 2, minCalls = 1, fallback = "fallback")
+        @Filter(name = "f")
+        public void breaker() {
+        }
+
+        public String fallback(Integer n) {
+            return "integer";
+        }
+
+        public Object fallback(Object o) {
+            return "object";
+        }
+
+        public String fallback(String s) {
+            return "string " + s;
+        }
+    }
+
+    @Test
+    public void test4() {
+        A a = getAopProxy(new A(), new Advice3());
+        a.setFail(true);
+        assertThrows(IllegalStateException.class, () -> a.f("hello"));
+        // 选择参数类型最具体的降级方法
+        assertEquals("string hello", a.f("hello"));
+    }
+
+    public static class Advice4 {
+        @CircuitBreaker(value = "CircuitBreakerTest.k", windowSize = 4, minCalls = 1, openDuration = 300)
+        @Filter(name = "k")
+        public void breaker() {
+        }
+    }
+
+    private static Thread call(A a, CountDownLatch latch) {
+        Thread t = new Thread(() -> assertThrows(IllegalStateException.class, () -> a.k(latch)));
+        t.start();
+        return t;
+    }
+
+    @Test
+    public void test5() throws Exception {
+        A a = getAopProxy(new A(), new Advice4());
+        CountDownLatch first = new CountDownLatch(1);
+        CountDownLatch late = new CountDownLatch(1);
+        Thread t1 = call(a, first);
+        Thread t2 = call(a, late);
+        Thread t3 = call(a, late);
+        Thread.sleep(50);
+
+        first.countDown();
+        t1.join();
+        long openedAt = System.nanoTime();
+        CircuitState state = ByxAOP.circuitBreakers().get("CircuitBreakerTest.k");
+        assertEquals(CircuitState.State.OPEN, state.getState());
+
+        // 打开之后才失败的调用不推迟试探调用的时间
+        Thread.sleep(200);
+        late.countDown();
+        t2.join();
+        t3.join();
+        Thread.sleep(Math.max(0, 350 - (System.nanoTime() - openedAt) / 1000000));
+        assertThrows(IllegalStateException.class, () -> a.k(new CountDownLatch(0)));
+    }
+
+    public static class Advice5 {
+        @CircuitBreaker(failureRate = 1.5)
+        @Filter(name = "f")
+        public void breaker() {
+        }
+    }
+
+    public static class Advice6 {
+        @CircuitBreaker(fallback = "noSuchMethod")
+        @Filter(name = "f")
+        public void breaker() {
+        }
+    }
+
+    @Test
+    public void test6() {
+        // 不合法的参数和不存在的降级方法在创建代理时就被拒绝
+        assertThrows(ByxAOPException.class, () -> getAopProxy(new A(), new Advice5()));
+        assertThrows(ByxAOPException.class, () -> getAopProxy(new A(), new Advice6()));
+    }
+
+    public static class Advice7 {
+        @CircuitBreaker(value = "CircuitBreakerTest.f7", windowSize = 1024, minCalls = 32, openDuration = 10000)
+        @Filter(name = "f")
+        public void breaker() {
+        }
+    }
+
+    private static void callConcurrently(A a, int threads, int calls) throws InterruptedException {
+        Thread[] ts = new Thread[threads];
+        for (int i = 0; i < threads; ++i) {
+            ts[i] = new Thread(() -> {
+                for (int j = 0; j < calls; ++j) {
+                    try {
+                        a.f("hello");
+                    } catch (RuntimeException e) {
+                        // 失败和熔断都计入滑动窗口或被拒绝
+                    }
+                }
+            });
+            ts[i].start();
+        }
+        for (Thread t : ts) {
+            t.join();
+        }
+    }
+
+    @Test
+    public void test7() throws Exception {
+        // 多个线程同时记录调用结果，窗口可能分段，统计结果仍然正确
+        A ok = getAopProxy(new A(), new Advice7());
+        callConcurrently(ok, 4, 500);
+        CircuitState state = ByxAOP.circuitBreakers().get("CircuitBreakerTest.f7");
+        assertEquals(CircuitState.State.CLOSED, state.getState());
+        assertEquals(0.0, state.getFailureRate(), 0);
+
+        A failing = getAopProxy(new A(), new Advice7());
+        failing.setFail(true);
+        callConcurrently(failing, 4, 500);
+        assertEquals(CircuitState.State.OPEN, state.getState());
+        assertThrows(CircuitBreakerOpenException.class, () -> ok.f("hello"));
+
+        state.reset();
+        assertEquals(CircuitState.State.CLOSED, state.getState());
+        assertEquals(0.0, state.getFailureRate(), 0);
+        assertEquals("hello", ok.f("hello"));
+    }
+}
@@ -0,0 +1,147 @@
+package byx.aop.test;
+
+import byx.aop.WeaveMode;
+import byx.aop.annotation.After;
+import byx.aop.annotation.AfterThrowing;
+import byx.aop.annotation.Filter;
+import byx.util.proxy.ProxyType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+
+import static byx.aop.ByxAOP.getAopProxy;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompletionStageAdviceTest {
+    public static class A {
+        private CompletableFuture<String> pending = new CompletableFuture<>();
+        private boolean syncFailure = false;
+
+        public CompletableFuture<String> f() {
+            return pending;
+        }
+
+        public CompletionStage<String> g(boolean fail) {
+            if (fail && syncFailure) {
+                throw new IllegalStateException("sync");
+            }
+            if (fail) {
+                CompletableFuture<String> future = new CompletableFuture<>();
+                future.completeExceptionally(new IllegalStateException("async"));
+                return future;
+            }
+            return CompletableFuture.completedFuture("g");
+        }
+
+        public CompletableFuture<String> h() {
+            return pending;
+        }
+
+        public CompletableFuture<String> getPending() {
+            return pending;
+        }
+
+        public void setSyncFailure(boolean syncFailure) {
+            this.syncFailure = syncFailure;
+        }
+    }
+
+    public static class Advice1 {
+        private final List<String> log = new ArrayList<>();
+
+        @After
+        @Filter(name = "f")
+        public String afterF(String s) {
+            log.add("afterF " + s);
+            return s + " afterF";
+        }
+
+        @AfterThrowing
+        @Filter(name = "g")
+        public String afterThrowingG(IllegalStateException e) {
+            log.add("afterThrowingG " + e.getMessage());
+            return "recovered";
+        }
+
+        // 参数是CompletableFuture时仍然接收目标方法返回的对象
+        @After
+        @Filter(name = "h")
+        public CompletableFuture<String> afterH(CompletableFuture<String> future) {
+            log.add("afterH " + future.isDone());
+            return future;
+        }
+    }
+
+    @Test
+    public void test1() throws Exception {
+        for (WeaveMode mode : WeaveMode.values()) {
+            Advice1 advice = new Advice1();
+            A a = getAopProxy(new A(), ProxyType.AUTO, mode, advice);
+
+            CompletableFuture<String> f = a.f();
+            assertTrue(advice.log.isEmpty());
+            a.getPending().complete("hello");
+            assertEquals("hello afterF", f.get());
+            assertEquals("afterF hello", advice.log.get(0));
+
+            assertEquals("g", a.g(false).toCompletableFuture().get());
+            assertEquals("recovered", a.g(true).toCompletableFuture().get());
+            assertEquals("afterThrowingG async", advice.log.get(1));
+
+            assertSame(a.getPending(), a.h());
+            assertEquals("afterH true", advice.log.get(2));
+        }
+    }
+
+    public static class Advice2 {
+        @After
+        @Filter(name = "f")
+        public String afterF(String s) {
+            throw new IllegalArgumentException(s);
+        }
+    }
+
+    @Test
+    public void test2() {
+        A a = getAopProxy(new A(), new Advice2());
+        CompletableFuture<String> f = a.f();
+        a.getPending().complete("hello");
+        ExecutionException e = assertThrows(ExecutionException.class, f::get);
+        assertTrue(e.getCause() instanceof IllegalArgumentException);
+    }
+
+    @Test
+    public void test3() throws Exception {
+        // 目标方法直接抛出异常时，增强方法的返回值包装成CompletableFuture
+        for (WeaveMode mode : WeaveMode.values()) {
+            Advice1 advice = new Advice1();
+            A a = getAopProxy(new A(), ProxyType.AUTO, mode, advice);
+            a.setSyncFailure(true);
+            assertEquals("recovered", a.g(true).toCompletableFuture().get());
+            assertEquals("afterThrowingG sync", advice.log.get(0));
+        }
+    }
+
+    public static class Advice3 {
+        @AfterThrowing
+        @Filter(name = "g")
+        public void afterThrowingG(IllegalStateException e) {
+        }
+    }
+
+    @Test
+    public void test4() throws Exception {
+        // void增强方法处理目标方法直接抛出的异常时，返回以null完成的CompletableFuture
+        for (WeaveMode mode : WeaveMode.values()) {
+            A a = getAopProxy(new A(), ProxyType.AUTO, mode, new Advice3());
+            a.setSyncFailure(true);
+            CompletionStage<String> stage = a.g(true);
+            assertNotNull(stage);
+            assertNull(stage.toCompletableFuture().get());
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package byx.aop.test;
+
+import byx.aop.annotation.After;
+import byx.aop.annotation.Filter;
+import org.junit.jupiter.api.Test;
+
+import static byx.aop.ByxAOP.getAopProxy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class DispatchTest {
+    private static int count = 0;
+
+    public static class A {
+        public String f(String s) {
+            return s;
+        }
+
+        public String f(String s, String t) {
+            return s + t;
+        }
+
+        public String g(String s) {
+            return s;
+        }
+    }
+
+    public static class Advice {
+        @After
+        @Filter(name = "f", parameterTypes = String.class)
+        public String afterF(String ret) {
+            count++;
+            return ret + " afterF";
+        }
+
+        @After
+        @Filter(pattern = "f|g")
+        public String afterAll(String ret) {
+            count++;
+            return ret + " afterAll";
+        }
+    }
+
+    @Test
+    public void test() {
+        A a = getAopProxy(new A(), new Advice());
+
+        count = 0;
+        for (int i = 0; i < 3; ++i) {
+            assertEquals("a afterF afterAll", a.f("a"));
+            assertEquals("ab afterAll", a.f("a", "b"));
+            assertEquals("c afterAll", a.g("c"));
+        }
+        assertEquals(12, count);
+
+        assertEquals(a.hashCode(), a.hashCode());
+    }
+}
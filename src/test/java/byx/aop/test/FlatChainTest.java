@@ -0,0 +1,113 @@
+package byx.aop.test;
+
+import byx.aop.annotation.*;
+import byx.util.proxy.core.TargetMethod;
+import org.junit.jupiter.api.Test;
+
+import static byx.aop.ByxAOP.getAopProxy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class FlatChainTest {
+    public static class A {
+        public String f(String s) {
+            return s;
+        }
+    }
+
+    public static class Advice1 {
+        @AfterThrowing
+        @Order(5)
+        public String afterThrowing(IllegalStateException e) {
+            return "handled " + e.getMessage();
+        }
+
+        @After
+        @Order(4)
+        public String after1(String ret) {
+            return ret + " after1";
+        }
+
+        @Around
+        @Order(3)
+        public Object around(TargetMethod targetMethod) {
+            return targetMethod.invoke(targetMethod.getParams()[0] + "!") + " " + targetMethod.invoke("x");
+        }
+
+        @After
+        @Order(2)
+        public String after2(String ret) {
+            if (ret.startsWith("x")) {
+                throw new IllegalStateException(ret);
+            }
+            return ret + " after2";
+        }
+
+        @Before
+        @Order(1)
+        public Object[] before(String s) {
+            return new Object[]{s + s};
+        }
+    }
+
+    @Test
+    public void test1() {
+        A a = getAopProxy(new A(), new Advice1());
+        assertEquals("handled xx", a.f("a"));
+    }
+
+    public static class Advice2 {
+        @Around
+        @Order(3)
+        public Object around(TargetMethod targetMethod) {
+            return "[" + targetMethod.invoke(targetMethod.getParams()[0] + "!") + "]";
+        }
+
+        @After
+        @Order(2)
+        public String after(String ret) {
+            return ret + " after";
+        }
+
+        @Before
+        @Order(1)
+        public Object[] before(String s) {
+            return new Object[]{s + s};
+        }
+    }
+
+    @Test
+    public void test2() {
+        A a = getAopProxy(new A(), new Advice2());
+        assertEquals("[a!a! after]", a.f("a"));
+    }
+
+    public static class Advice3 {
+        @Before
+        public Object[] before(String s) {
+            return new Object[]{s + "b"};
+        }
+
+        @After
+        public String after(String ret) {
+            return ret + "a";
+        }
+    }
+
+    @Test
+    public void test3() {
+        Object[] advices = new Object[30];
+        for (int i = 0; i < advices.length; ++i) {
+            advices[i] = new Advice3();
+        }
+        A a = getAopProxy(new A(), advices);
+
+        StringBuilder expected = new StringBuilder("s");
+        for (int i = 0; i < 30; ++i) {
+            expected.append('b');
+        }
+        for (int i = 0; i < 30; ++i) {
+            expected.append('a');
+        }
+        assertEquals(expected.toString(), a.f("s"));
+    }
+}
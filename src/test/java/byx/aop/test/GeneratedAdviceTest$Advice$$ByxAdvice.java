@@ -0,0 +1,48 @@
+package byx.aop.test;
+
+import byx.aop.GeneratedAdvice;
+
+/**
+ * 手写的测试桩，不是byx-aop-processor的输出，修改GeneratedAdviceTest.Advice时需要同步修改
+ * 本模块的测试不运行注解处理器，这里模拟处理器生成的类，另外记录调用次数
+ * 处理器实际生成的代码由byx-aop-processor中的AdviceProcessorTest验证
+ */
+public final class GeneratedAdviceTest$Advice$$ByxAdvice implements GeneratedAdvice {
+    @Override
+    public String[] getMethodNames() {
+        return new String[]{"before", "after"};
+    }
+
+    @Override
+    public Class<?>[][] getParameterTypes() {
+        return new Class<?>[][]{
+                {int.class},
+                {int.class}
+        };
+    }
+
+    @Override
+    public Object invoke(Object advice, int index, Object[] args) throws Throwable {
+        switch (index) {
+            case 0:
+                return ((GeneratedAdviceTest.Advice) advice).before((int) args[0]);
+            case 1:
+                return ((GeneratedAdviceTest.Advice) advice).after((int) args[0]);
+            default:
+                throw new IllegalArgumentException("No advice method at index " + index);
+        }
+    }
+
+    @Override
+    public Object invoke1(Object advice, int index, Object a0) throws Throwable {
+        GeneratedAdviceTest.invokeCount++;
+        switch (index) {
+            case 0:
+                return ((GeneratedAdviceTest.Advice) advice).before((int) a0);
+            case 1:
+                return ((GeneratedAdviceTest.Advice) advice).after((int) a0);
+            default:
+                throw new IllegalArgumentException("No advice method at index " + index);
+        }
+    }
+}
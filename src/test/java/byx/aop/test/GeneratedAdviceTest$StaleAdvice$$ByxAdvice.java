@@ -0,0 +1,43 @@
+package byx.aop.test;
+
+import byx.aop.GeneratedAdvice;
+
+/**
+ * 手写的测试桩，不是byx-aop-processor的输出
+ * 模拟过期的生成类：生成之后GeneratedAdviceTest.StaleAdvice又增加了增强方法after
+ */
+public final class GeneratedAdviceTest$StaleAdvice$$ByxAdvice implements GeneratedAdvice {
+    @Override
+    public String[] getMethodNames() {
+        return new String[]{"before"};
+    }
+
+    @Override
+    public Class<?>[][] getParameterTypes() {
+        return new Class<?>[][]{
+                {int.class}
+        };
+    }
+
+    @Override
+    public Object invoke(Object advice, int index, Object[] args) throws Throwable {
+        GeneratedAdviceTest.invokeCount++;
+        switch (index) {
+            case 0:
+                return ((GeneratedAdviceTest.StaleAdvice) advice).before((int) args[0]);
+            default:
+                throw new IllegalArgumentException("No advice method at index " + index);
+        }
+    }
+
+    @Override
+    public Object invoke1(Object advice, int index, Object a0) throws Throwable {
+        GeneratedAdviceTest.invokeCount++;
+        switch (index) {
+            case 0:
+                return ((GeneratedAdviceTest.StaleAdvice) advice).before((int) a0);
+            default:
+                throw new IllegalArgumentException("No advice method at index " + index);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package byx.aop.test;
+
+import byx.aop.annotation.After;
+import byx.aop.annotation.Before;
+import byx.aop.annotation.Filter;
+import org.junit.jupiter.api.Test;
+
+import static byx.aop.ByxAOP.getAopProxy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class GeneratedAdviceTest {
+    static int invokeCount = 0;
+
+    public static class A {
+        public int f(int n) {
+            return n;
+        }
+    }
+
+    public static class Advice {
+        @Before
+        @Filter(name = "f")
+        public Object[] before(int n) {
+            return new Object[]{n * 10};
+        }
+
+        @After
+        @Filter(name = "f")
+        public int after(int ret) {
+            return ret + 1;
+        }
+
+        public void notAdvice() {
+        }
+    }
+
+    public static class StaleAdvice {
+        @Before
+        @Filter(name = "f")
+        public Object[] before(int n) {
+            return new Object[]{n * 10};
+        }
+
+        @After
+        @Filter(name = "f")
+        public int after(int ret) {
+            return ret + 1;
+        }
+    }
+
+    @Test
+    public void test() {
+        invokeCount = 0;
+        A a = getAopProxy(new A(), new Advice());
+        assertEquals(31, a.f(3));
+        assertEquals(2, invokeCount);
+    }
+
+    @Test
+    public void testStale() {
+        invokeCount = 0;
+        A a = getAopProxy(new A(), new StaleAdvice());
+        assertEquals(31, a.f(3));
+        assertEquals(0, invokeCount);
+    }
+}
@@ -0,0 +1,100 @@
+package byx.aop.test;
+
+import byx.aop.AopProxyFactory;
+import byx.aop.ByxAOP;
+import byx.aop.WeaveMode;
+import byx.aop.annotation.After;
+import byx.aop.annotation.Cacheable;
+import byx.aop.annotation.Filter;
+import byx.aop.annotation.Order;
+import byx.aop.exception.ByxAOPException;
+import byx.util.proxy.ProxyType;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class HotSwapTest {
+    public interface A {
+        String f(String s);
+
+        String g(String s);
+    }
+
+    public static class AImpl implements A {
+        private int count = 0;
+
+        @Override
+        public String f(String s) {
+            return s;
+        }
+
+        @Override
+        public String g(String s) {
+            return s + (++count);
+        }
+    }
+
+    public static class Advice1 {
+        @After
+        @Filter(name = "f")
+        @Order(1)
+        public String after1(String ret) {
+            return ret + " after1";
+        }
+
+        @After
+        @Filter(name = "f")
+        @Order(2)
+        public String after2(String ret) {
+            return ret + " after2";
+        }
+
+        @Cacheable
+        @Filter(name = "g")
+        public void cacheG() {
+        }
+    }
+
+    public static class Advice2 {
+        @After
+        @Filter(name = "f")
+        public String after3(String ret) {
+            return ret + " after3";
+        }
+    }
+
+    @Test
+    public void test1() {
+        for (WeaveMode mode : WeaveMode.values()) {
+            Advice1 advice = new Advice1();
+            AopProxyFactory<A> factory = ByxAOP.factory(A.class, ProxyType.JDK, mode, advice);
+            A a = factory.wrap(new AImpl());
+            assertEquals("a after1 after2", a.f("a"));
+            assertEquals("b1", a.g("b"));
+
+            factory.setEnabled(advice, "after1", false);
+            assertEquals("a after2", a.f("a"));
+            assertEquals("b1", a.g("b"));
+
+            factory.setEnabled(advice, false);
+            assertEquals("a", a.f("a"));
+            assertEquals("b2", a.g("b"));
+
+            factory.setEnabled(advice, true);
+            assertEquals("a after1 after2", a.f("a"));
+            assertEquals("b1", a.g("b"));
+
+            factory.setAdvices(new Advice2());
+            assertEquals("a after3", a.f("a"));
+            assertEquals("b3", a.g("b"));
+        }
+    }
+
+    @Test
+    public void test2() {
+        AopProxyFactory<A> factory = ByxAOP.factory(A.class, new Advice1());
+        assertThrows(ByxAOPException.class, () -> factory.setEnabled(new Advice2(), false));
+        assertThrows(ByxAOPException.class, () -> factory.setEnabled(factory, "after3", false));
+    }
+}
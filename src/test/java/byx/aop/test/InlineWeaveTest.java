@@ -0,0 +1,122 @@
+package byx.aop.test;
+
+import byx.aop.WeaveMode;
+import byx.aop.annotation.*;
+import byx.aop.exception.ByxAOPException;
+import byx.util.proxy.ProxyType;
+import byx.util.proxy.core.TargetMethod;
+import org.junit.jupiter.api.Test;
+
+import static byx.aop.ByxAOP.getAopProxy;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InlineWeaveTest {
+    private static int count = 0;
+
+    public static class MyException1 extends Exception {}
+    public static class MyException2 extends RuntimeException {}
+
+    public static class A {
+        public int f1(int a, int b) {
+            return a + b;
+        }
+
+        public String f2(String s) {
+            return s;
+        }
+
+        public String f3(String s) {
+            throw new MyException2();
+        }
+
+        public String f4(String s) {
+            return s;
+        }
+
+        public String f5(String s) {
+            return s;
+        }
+
+        public void f6() {
+            count++;
+        }
+    }
+
+    public static class Advice {
+        @Before
+        @Filter(name = "f1")
+        public int[] beforeF1(int a, int b) {
+            return new int[]{a * 10, b * 10};
+        }
+
+        @After
+        @Filter(name = "f1")
+        public int afterF1(int ret) {
+            return ret + 1;
+        }
+
+        @Before
+        @Filter(name = "f2")
+        @Order(1)
+        public String[] beforeF2(String s) {
+            return new String[]{s + " b1"};
+        }
+
+        @After
+        @Filter(name = "f2")
+        @Order(2)
+        public String afterF2(String s) {
+            return s + " a2";
+        }
+
+        @Before
+        @Filter(name = "f2")
+        @Order(3)
+        public void countF2(String s) {
+            count++;
+        }
+
+        @AfterThrowing
+        @Filter(name = "f3")
+        public String afterThrowingF3(MyException2 e) {
+            return "caught";
+        }
+
+        @Replace
+        @Filter(name = "f4")
+        public String replaceF4(String s) {
+            return s + " replaced";
+        }
+
+        @Around
+        @Filter(name = "f5")
+        public String aroundF5(TargetMethod targetMethod) {
+            return targetMethod.invoke("around") + " " + targetMethod.getParams()[0];
+        }
+
+        @After
+        @Filter(name = "f6")
+        public void afterF6() throws MyException1 {
+            throw new MyException1();
+        }
+    }
+
+    @Test
+    public void test() {
+        A a = getAopProxy(new A(), ProxyType.AUTO, WeaveMode.INLINE, new Advice());
+
+        assertEquals(31, a.f1(1, 2));
+
+        count = 0;
+        assertEquals("x b1 a2", a.f2("x"));
+        assertEquals(1, count);
+
+        assertEquals("caught", a.f3("x"));
+        assertEquals("x replaced", a.f4("x"));
+        assertEquals("around x", a.f5("x"));
+
+        count = 0;
+        assertThrows(ByxAOPException.class, a::f6);
+        assertEquals(1, count);
+    }
+}
@@ -1,6 +1,7 @@
 package byx.aop.test;
 
 import byx.aop.annotation.*;
+import byx.aop.exception.ByxAOPException;
 import byx.util.proxy.core.TargetMethod;
 import org.junit.jupiter.api.Test;
 
@@ -53,6 +54,13 @@ public class MethodMatcherTest {
         }
     }
 
+    public static class Advice2 {
+        @Before
+        @Filter(pattern = "f(")
+        public void g1() {
+        }
+    }
+
     @Test
     public void test() {
         A a = getAopProxy(new A(), new Advice());
@@ -62,4 +70,9 @@ public class MethodMatcherTest {
         assertEquals("4 5", a.f2(3, 4));
         assertEquals("12 abc g4", a.f2(12, "abc"));
     }
+
+    @Test
+    public void testIllegalPattern() {
+        assertThrows(ByxAOPException.class, () -> getAopProxy(new A(), new Advice2()));
+    }
 }
@@ -1,6 +1,8 @@
 package byx.aop.test;
 
+import byx.aop.AopOptions;
 import byx.aop.annotation.Around;
+import byx.aop.annotation.Before;
 import byx.aop.annotation.Filter;
 import byx.aop.annotation.Order;
 import byx.util.proxy.core.TargetMethod;
@@ -8,6 +10,7 @@ import org.junit.jupiter.api.Test;
 
 import static byx.aop.ByxAOP.getAopProxy;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class OrderTest {
     public interface A {
@@ -57,9 +60,53 @@ public class OrderTest {
         }
     }
 
+    public static class Advice1 {
+        @Around
+        @Filter(name = "f")
+        @Order(1)
+        public String apple(TargetMethod targetMethod) {
+            return targetMethod.invokeWithOriginalParams() + " 1";
+        }
+
+        @Around
+        @Filter(name = "f")
+        @Order(3)
+        public String banana(TargetMethod targetMethod) {
+            return targetMethod.invokeWithOriginalParams() + " 3";
+        }
+    }
+
+    public static class Advice2 {
+        @Around
+        @Filter(name = "f")
+        @Order(2)
+        public String cat(TargetMethod targetMethod) {
+            return targetMethod.invokeWithOriginalParams() + " 2";
+        }
+
+        @Before
+        @Filter(name = "f")
+        @Order(4)
+        public void reject(String s) {
+            if ("reject".equals(s)) {
+                throw new IllegalArgumentException();
+            }
+        }
+    }
+
     @Test
     public void test() {
         A a = getAopProxy(new AImpl(), new Advice());
         assertEquals("f: hello 1 2 3", a.f("hello"));
     }
+
+    @Test
+    public void testGlobalOrder() {
+        A a1 = getAopProxy(new AImpl(), new Advice1(), new Advice2());
+        assertEquals("f: hello 1 3 2", a1.f("hello"));
+
+        A a2 = getAopProxy(new AImpl(), new AopOptions().globalOrder(true), new Advice1(), new Advice2());
+        assertEquals("f: hello 1 2 3", a2.f("hello"));
+        assertThrows(IllegalArgumentException.class, () -> a2.f("reject"));
+    }
 }
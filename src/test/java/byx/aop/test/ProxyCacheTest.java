@@ -0,0 +1,142 @@
+package byx.aop.test;
+
+import byx.aop.ByxAOP;
+import byx.aop.annotation.After;
+import byx.aop.annotation.Filter;
+import byx.aop.metrics.CacheStats;
+import byx.util.proxy.ProxyType;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProxyCacheTest {
+    public interface A {
+        int f(int n);
+        int g(int n);
+    }
+
+    public static class A1 implements A {
+        @Override
+        public int f(int n) {
+            return n;
+        }
+
+        @Override
+        public int g(int n) {
+            return n;
+        }
+    }
+
+    public static class Advice1 {
+        private final int delta;
+
+        public Advice1(int delta) {
+            this.delta = delta;
+        }
+
+        @After
+        @Filter(name = "f")
+        public int after(int ret) {
+            return ret + delta;
+        }
+    }
+
+    public static class Advice2 {
+        @After
+        @Filter(name = "g")
+        public int after(int ret) {
+            return -ret;
+        }
+    }
+
+    @Test
+    public void test() {
+        CacheStats before = ByxAOP.proxyCacheStats();
+        for (int i = 0; i < 100; ++i) {
+            A a = ByxAOP.getAopProxy(new A1(), ProxyType.JDK, new Advice1(i));
+            assertEquals(10 + i, a.f(10));
+            assertEquals(10, a.g(10));
+        }
+        CacheStats after = ByxAOP.proxyCacheStats();
+        assertTrue(after.getHits() - before.getHits() >= 99);
+
+        // 不同的增强类使用不同的匹配结果
+        A a = ByxAOP.getAopProxy(new A1(), ProxyType.JDK, new Advice2());
+        assertEquals(10, a.f(10));
+        assertEquals(-10, a.g(10));
+        A b = ByxAOP.getAopProxy(new A1(), ProxyType.JDK, new Advice1(1), new Advice2());
+        assertEquals(11, b.f(10));
+        assertEquals(-10, b.g(10));
+        assertTrue(ByxAOP.proxyCacheStats().getHitRate() > 0);
+    }
+
+    public static class LoaderAdvice {
+        @After
+        @Filter(name = "f")
+        public int after(int ret) {
+            return ret * 2;
+        }
+    }
+
+    /**
+     * 自己加载LoaderAdvice，其它类交给父类加载器
+     */
+    private static class AdviceClassLoader extends ClassLoader {
+        private AdviceClassLoader() {
+            super(ProxyCacheTest.class.getClassLoader());
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!name.equals(LoaderAdvice.class.getName())) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> c = findLoadedClass(name);
+                if (c == null) {
+                    byte[] bytes = read(name.replace('.', '/') + ".class");
+                    c = defineClass(name, bytes, 0, bytes.length);
+                }
+                return c;
+            }
+        }
+
+        private byte[] read(String resource) throws ClassNotFoundException {
+            try (InputStream in = getParent().getResourceAsStream(resource)) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                byte[] buffer = new byte[4096];
+                for (int n; (n = in.read(buffer)) > 0; ) {
+                    out.write(buffer, 0, n);
+                }
+                return out.toByteArray();
+            } catch (IOException e) {
+                throw new ClassNotFoundException(resource, e);
+            }
+        }
+    }
+
+    private static WeakReference<ClassLoader> useAdviceLoader() throws Exception {
+        ClassLoader loader = new AdviceClassLoader();
+        Class<?> adviceClass = loader.loadClass(LoaderAdvice.class.getName());
+        assertNotSame(LoaderAdvice.class, adviceClass);
+        A a = ByxAOP.getAopProxy(new A1(), ProxyType.JDK, adviceClass.getConstructor().newInstance());
+        assertEquals(20, a.f(10));
+        return new WeakReference<>(loader);
+    }
+
+    @Test
+    public void testAdviceLoaderCollected() throws Exception {
+        // 匹配结果按目标类型缓存，但不能阻止增强类所在的类加载器被卸载
+        WeakReference<ClassLoader> loader = useAdviceLoader();
+        for (int i = 0; i < 50 && loader.get() != null; ++i) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertNull(loader.get());
+    }
+}
@@ -0,0 +1,46 @@
+package byx.aop.test;
+
+import byx.aop.AopProxyFactory;
+import byx.aop.ByxAOP;
+import byx.aop.annotation.After;
+import byx.aop.annotation.Filter;
+import byx.util.proxy.ProxyType;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ProxyFactoryTest {
+    public interface A {
+        String f();
+    }
+
+    public static class AImpl implements A {
+        private final String name;
+
+        public AImpl(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String f() {
+            return name;
+        }
+    }
+
+    public static class Advice {
+        @After
+        @Filter(name = "f")
+        public String afterF(String ret) {
+            return ret + " afterF";
+        }
+    }
+
+    @Test
+    public void test() {
+        AopProxyFactory<A> factory = ByxAOP.factory(A.class, ProxyType.JDK, new Advice());
+        for (int i = 0; i < 10; ++i) {
+            A a = factory.wrap(new AImpl("a" + i));
+            assertEquals("a" + i + " afterF", a.f());
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package byx.aop.test;
+
+import byx.aop.AopOptions;
+import byx.aop.AsyncExecutors;
+import byx.aop.RejectPolicy;
+import byx.aop.annotation.Filter;
+import byx.aop.annotation.Retry;
+import byx.aop.exception.ByxAOPException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static byx.aop.ByxAOP.getAopProxy;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RetryTest {
+    public static class MyFuture<T> extends CompletableFuture<T> {
+    }
+
+    public static class A {
+        private final List<String> threads = new CopyOnWriteArrayList<>();
+        private int count = 0;
+        private final int failures;
+
+        public A() {
+            this(0);
+        }
+
+        public A(int failures) {
+            this.failures = failures;
+        }
+
+        public int f(int n) {
+            if (count++ < failures) {
+                throw new IllegalStateException("fail " + count);
+            }
+            return n;
+        }
+
+        public int g(int n) {
+            count++;
+            throw new IllegalArgumentException();
+        }
+
+        public CompletableFuture<Integer> h(int n) {
+            threads.add(Thread.currentThread().getName());
+            CompletableFuture<Integer> future = new CompletableFuture<>();
+            if (count++ < failures) {
+                future.completeExceptionally(new IllegalStateException("fail " + count));
+            } else {
+                future.complete(n);
+            }
+            return future;
+        }
+
+        public MyFuture<Integer> k(int n) {
+            count++;
+            MyFuture<Integer> future = new MyFuture<>();
+            future.completeExceptionally(new IllegalStateException());
+            return future;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public List<String> getThreads() {
+            return threads;
+        }
+    }
+
+    public static class Advice1 {
+        @Retry(maxAttempts = 3, backoff = 1, retryOn = IllegalStateException.class)
+        @Filter(pattern = "f|g|h|k")
+        public void retry() {
+        }
+    }
+
+    @Test
+    public void test1() {
+        A a = getAopProxy(new A(2), new Advice1());
+        assertEquals(5, a.f(5));
+        assertEquals(3, a.getCount());
+
+        A b = getAopProxy(new A(5), new Advice1());
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> b.f(5));
+        assertEquals("fail 3", e.getMessage());
+        assertEquals(3, b.getCount());
+
+        // 不在retryOn中的异常不重试
+        A c = getAopProxy(new A(0), new Advice1());
+        assertThrows(IllegalArgumentException.class, () -> c.g(5));
+        assertEquals(1, c.getCount());
+    }
+
+    @Test
+    public void test2() throws Exception {
+        A a = getAopProxy(new A(2), new Advice1());
+        CompletionStage<Integer> stage = a.h(5);
+        assertEquals(Integer.valueOf(5), stage.toCompletableFuture().get(5, TimeUnit.SECONDS));
+        assertEquals(3, a.getCount());
+
+        A b = getAopProxy(new A(5), new Advice1());
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> b.h(5).get(5, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof IllegalStateException);
+        assertEquals(3, b.getCount());
+    }
+
+    public static class Advice2 {
+        @Retry(maxAttempts = 0)
+        public void retry() {
+        }
+    }
+
+    @Test
+    public void test3() {
+        assertThrows(ByxAOPException.class, () -> getAopProxy(new A(0), new Advice2()));
+    }
+
+    @Test
+    public void test4() throws Exception {
+        // 重试在执行器中调用目标方法，不占用定时器线程
+        AtomicInteger executed = new AtomicInteger();
+        Executor executor = task -> {
+            executed.incrementAndGet();
+            Thread t = new Thread(task, "retry-worker");
+            t.start();
+        };
+        A a = getAopProxy(new A(2), new AopOptions().asyncExecutor(executor), new Advice1());
+        assertEquals(Integer.valueOf(5), a.h(5).get(5, TimeUnit.SECONDS));
+        assertEquals(3, a.getCount());
+        assertEquals(2, executed.get());
+        assertEquals(Thread.currentThread().getName(), a.getThreads().get(0));
+        assertEquals("retry-worker", a.getThreads().get(1));
+        assertEquals("retry-worker", a.getThreads().get(2));
+    }
+
+    @Test
+    public void test5() {
+        // 返回类型不能容纳CompletableFuture时不异步重试，原样返回目标方法的结果
+        A a = getAopProxy(new A(), new Advice1());
+        MyFuture<Integer> future = a.k(5);
+        assertTrue(future.isCompletedExceptionally());
+        assertEquals(1, a.getCount());
+    }
+
+    @Test
+    public void test6() throws Exception {
+        // 执行器已满时放弃重试，即使策略为CALLER_RUNS也不在定时器线程中调用目标方法
+        Executor executor = AsyncExecutors.bounded(1, RejectPolicy.CALLER_RUNS);
+        CountDownLatch busy = new CountDownLatch(1);
+        executor.execute(() -> {
+            try {
+                busy.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        try {
+            A a = getAopProxy(new A(2), new AopOptions().asyncExecutor(executor), new Advice1());
+            ExecutionException e = assertThrows(ExecutionException.class,
+                    () -> a.h(5).get(5, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof IllegalStateException);
+            assertTrue(e.getCause().getSuppressed()[0] instanceof RejectedExecutionException);
+            assertEquals(1, a.getCount());
+            assertFalse(a.getThreads().contains("byx-aop-retry"));
+        } finally {
+            busy.countDown();
+        }
+    }
+
+    public static class Advice3 {
+        @Retry(maxAttempts = 2, backoff = 200, jitter = 0, retryOn = IllegalStateException.class)
+        @Filter(pattern = "f")
+        public void retry() {
+        }
+    }
+
+    @Test
+    public void test7() throws Exception {
+        // 等待期间的虚假唤醒不会缩短退避时间
+        A a = getAopProxy(new A(1), new Advice3());
+        Thread caller = Thread.currentThread();
+        Thread waker = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                LockSupport.unpark(caller);
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(5));
+            }
+        });
+        waker.start();
+        try {
+            long start = System.nanoTime();
+            assertEquals(5, a.f(5));
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(200));
+            assertEquals(2, a.getCount());
+        } finally {
+            waker.interrupt();
+            waker.join();
+        }
+    }
+}
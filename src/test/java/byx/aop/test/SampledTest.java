@@ -0,0 +1,76 @@
+package byx.aop.test;
+
+import byx.aop.annotation.After;
+import byx.aop.annotation.Around;
+import byx.aop.annotation.Filter;
+import byx.aop.annotation.Sampled;
+import byx.aop.exception.ByxAOPException;
+import byx.util.proxy.core.TargetMethod;
+import org.junit.jupiter.api.Test;
+
+import static byx.aop.ByxAOP.getAopProxy;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SampledTest {
+    public static class A {
+        public int f(int n) {
+            return n;
+        }
+
+        public int g(int n) {
+            return n;
+        }
+    }
+
+    public static class Advice1 {
+        private int aroundCount = 0;
+        private int afterCount = 0;
+
+        @Around
+        @Filter(name = "f")
+        @Sampled(rate = 0.5)
+        public Object around(TargetMethod targetMethod) {
+            aroundCount++;
+            return targetMethod.invokeWithOriginalParams();
+        }
+
+        @After
+        @Filter(name = "f")
+        public int after(int ret) {
+            afterCount++;
+            return ret + 1;
+        }
+
+        @After
+        @Filter(name = "g")
+        @Sampled(rate = 0)
+        public int never(int ret) {
+            return -1;
+        }
+    }
+
+    @Test
+    public void test1() {
+        Advice1 advice = new Advice1();
+        A a = getAopProxy(new A(), advice);
+
+        for (int i = 0; i < 10000; ++i) {
+            assertEquals(i + 1, a.f(i));
+            assertEquals(i, a.g(i));
+        }
+        assertEquals(10000, advice.afterCount);
+        assertTrue(advice.aroundCount > 4000 && advice.aroundCount < 6000);
+    }
+
+    public static class Advice2 {
+        @After
+        @Sampled(rate = 1.5)
+        public void after() {
+        }
+    }
+
+    @Test
+    public void test2() {
+        assertThrows(ByxAOPException.class, () -> getAopProxy(new A(), new Advice2()));
+    }
+}
@@ -0,0 +1,197 @@
+package byx.aop.test;
+
+import byx.aop.AopOptions;
+import byx.aop.AopProxyFactory;
+import byx.aop.ByxAOP;
+import byx.aop.annotation.After;
+import byx.aop.annotation.Around;
+import byx.aop.annotation.Before;
+import byx.aop.annotation.Filter;
+import byx.aop.exception.ByxAOPException;
+import byx.aop.metrics.AdviceStats;
+import byx.aop.metrics.AopStats;
+import byx.aop.metrics.MethodStats;
+import byx.util.proxy.core.TargetMethod;
+import org.junit.jupiter.api.Test;
+
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.ManagementFactory;
+
+import static byx.aop.ByxAOP.getAopProxy;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StatsTest {
+    public interface A {
+        int f(int n);
+        int g(int n);
+    }
+
+    public static class AImpl implements A {
+        @Override
+        public int f(int n) {
+            if (n < 0) {
+                throw new IllegalArgumentException();
+            }
+            return n;
+        }
+
+        @Override
+        public int g(int n) {
+            return n;
+        }
+    }
+
+    public static class Advice1 {
+        @Before
+        @Filter(name = "f")
+        public void before(int n) {
+        }
+
+        @Around
+        @Filter(name = "f")
+        public Object around(TargetMethod targetMethod) {
+            return targetMethod.invokeWithOriginalParams();
+        }
+
+        @After
+        @Filter(name = "f")
+        public int after(int ret) {
+            return ret + 1;
+        }
+    }
+
+    public static class Advice2 {
+        @Before
+        @Filter(name = "f")
+        public void check(int n) {
+        }
+
+        @Before
+        @Filter(name = "f")
+        public void check() {
+        }
+    }
+
+    public static class Key {
+    }
+
+    public static class B {
+        public int h(Key key) {
+            return 1;
+        }
+
+        public int h(Other.Key key) {
+            return 2;
+        }
+    }
+
+    public static class Other {
+        public static class Key {
+        }
+
+        public static class Advice2 {
+            @Before
+            @Filter(name = "f")
+            public void check(int n) {
+            }
+        }
+    }
+
+    @Test
+    public void test1() {
+        A a = getAopProxy(new AImpl(), new AopOptions().stats(true), new Advice1());
+        for (int i = 0; i < 10; ++i) {
+            assertEquals(i + 1, a.f(i));
+            assertEquals(i, a.g(i));
+        }
+        assertThrows(IllegalArgumentException.class, () -> a.f(-1));
+
+        AopStats stats = ByxAOP.stats(a);
+        MethodStats f = stats.getMethod(AImpl.class.getName() + ".f(int)");
+        assertEquals(11, f.getInvocations());
+        assertEquals(1, f.getExceptions());
+        assertTrue(f.getTargetNanos() > 0);
+        assertTrue(f.getTotalNanos() >= f.getTargetNanos());
+        assertEquals(3, f.getAdvices().size());
+        for (AdviceStats s : f.getAdvices()) {
+            assertTrue(s.getAdvice().startsWith(Advice1.class.getName() + "."));
+        }
+        AdviceStats around = f.getAdvices().stream().filter(s -> s.getType().equals("Around")).findFirst().get();
+        assertEquals(11, around.getInvocations());
+        assertEquals(1, around.getExceptions());
+        AdviceStats after = f.getAdvices().stream().filter(s -> s.getType().equals("After")).findFirst().get();
+        assertEquals(10, after.getInvocations());
+
+        // 没有被增强的方法也有统计
+        MethodStats g = stats.getMethod(AImpl.class.getName() + ".g(int)");
+        assertEquals(10, g.getInvocations());
+        assertTrue(g.getAdvices().isEmpty());
+
+        stats.reset();
+        assertEquals(0, f.getInvocations());
+        assertEquals(0, around.getInvocations());
+    }
+
+    @Test
+    public void test2() {
+        A a = getAopProxy(new AImpl(), new Advice1());
+        assertThrows(ByxAOPException.class, () -> ByxAOP.stats(a));
+        assertThrows(ByxAOPException.class, () -> ByxAOP.stats(new Object()));
+    }
+
+    @Test
+    public void test3() throws Exception {
+        AopProxyFactory<A> factory = ByxAOP.factory(A.class, new AopOptions().stats(true), new Advice1());
+        A a1 = factory.wrap(new AImpl());
+        A a2 = factory.wrap(new AImpl());
+        a1.f(1);
+        a2.f(2);
+        assertSame(factory.getStats(), ByxAOP.stats(a1));
+        assertSame(factory.getStats(), ByxAOP.stats(a2));
+        assertEquals(2, factory.getStats().getMethods().get(0).getInvocations());
+
+        ObjectName name = factory.getStats().registerMBean("StatsTest");
+        try {
+            CompositeData[] methods = (CompositeData[]) ManagementFactory.getPlatformMBeanServer()
+                    .getAttribute(name, "Methods");
+            assertEquals(2L, methods[0].get("invocations"));
+            CompositeData[] advices = (CompositeData[]) ManagementFactory.getPlatformMBeanServer()
+                    .getAttribute(name, "Advices");
+            assertEquals(3, advices.length);
+        } finally {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        }
+    }
+
+    @Test
+    public void test4() {
+        // 重载的增强方法以及简单类名相同的增强类分别统计
+        A a = getAopProxy(new AImpl(), new AopOptions().stats(true), new Advice2(), new Other.Advice2());
+        a.f(1);
+        AopStats stats = ByxAOP.stats(a);
+        assertEquals(3, stats.getAdvices().size());
+        for (AdviceStats s : stats.getAdvices()) {
+            assertEquals(1L, s.getInvocations());
+        }
+        assertTrue(stats.getAdvices().stream()
+                .anyMatch(s -> s.getAdvice().equals(Advice2.class.getName() + ".check(int)")));
+        assertTrue(stats.getAdvices().stream()
+                .anyMatch(s -> s.getAdvice().equals(Advice2.class.getName() + ".check()")));
+        assertTrue(stats.getAdvices().stream()
+                .anyMatch(s -> s.getAdvice().equals(Other.Advice2.class.getName() + ".check(int)")));
+    }
+
+    @Test
+    public void test5() {
+        // 参数类型简单类名相同的重载方法分别统计
+        B b = getAopProxy(new B(), new AopOptions().stats(true), new Advice1());
+        assertEquals(1, b.h(new Key()));
+        assertEquals(2, b.h(new Other.Key()));
+        assertEquals(2, b.h(new Other.Key()));
+        AopStats stats = ByxAOP.stats(b);
+        assertEquals(2, stats.getMethods().size());
+        assertEquals(1, stats.getMethod(B.class.getName() + ".h(" + Key.class.getName() + ")").getInvocations());
+        assertEquals(2, stats.getMethod(B.class.getName() + ".h(" + Other.Key.class.getName() + ")").getInvocations());
+    }
+}
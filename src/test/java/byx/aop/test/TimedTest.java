@@ -0,0 +1,89 @@
+package byx.aop.test;
+
+import byx.aop.ByxAOP;
+import byx.aop.annotation.Filter;
+import byx.aop.annotation.Timed;
+import byx.aop.exception.IllegalMethodSignatureException;
+import byx.aop.metrics.LatencyHistogram;
+import byx.aop.metrics.LatencySnapshot;
+import org.junit.jupiter.api.Test;
+
+import static byx.aop.ByxAOP.getAopProxy;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimedTest {
+    public static class A {
+        public int f(int n) {
+            return n + 1;
+        }
+
+        public int g(int n) {
+            if (n < 0) {
+                throw new IllegalArgumentException();
+            }
+            return n;
+        }
+    }
+
+    public static class Advice {
+        @Timed
+        @Filter(name = "f")
+        public void timeF() {
+        }
+
+        @Timed("TimedTest.g")
+        @Filter(name = "g")
+        public void timeG() {
+        }
+    }
+
+    public static class IllegalAdvice {
+        @Timed
+        public int timeAll(int n) {
+            return n;
+        }
+    }
+
+    @Test
+    public void test() {
+        A a = getAopProxy(new A(), new Advice());
+        for (int i = 0; i < 100; ++i) {
+            assertEquals(i + 1, a.f(i));
+        }
+        assertThrows(IllegalArgumentException.class, () -> a.g(-1));
+        assertEquals(5, a.g(5));
+
+        LatencySnapshot f = ByxAOP.metrics().snapshot(A.class.getName() + ".f(int)");
+        assertNotNull(f);
+        assertTrue(f.getCount() >= 100);
+        assertTrue(f.getP50() <= f.getP99());
+        assertTrue(f.getP99() <= f.getMax());
+
+        LatencySnapshot g = ByxAOP.metrics().snapshot("TimedTest.g");
+        assertNotNull(g);
+        assertTrue(g.getCount() >= 2);
+    }
+
+    @Test
+    public void testIllegalSignature() {
+        assertThrows(IllegalMethodSignatureException.class, () -> getAopProxy(new A(), new IllegalAdvice()));
+    }
+
+    @Test
+    public void testHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 10000; ++i) {
+            histogram.record(i * 1000L);
+        }
+        LatencySnapshot snapshot = histogram.snapshot();
+        assertEquals(10000, snapshot.getCount());
+        assertEquals(10000000, snapshot.getMax());
+        assertEquals(5000500.0, snapshot.getMean(), 1e-6);
+        assertEquals(5000000, snapshot.getP50(), 5000000 / 32.0);
+        assertEquals(9900000, snapshot.getP99(), 9900000 / 32.0);
+        assertEquals(9990000, snapshot.getP999(), 9990000 / 32.0);
+
+        histogram.reset();
+        assertEquals(0, histogram.snapshot().getCount());
+    }
+}